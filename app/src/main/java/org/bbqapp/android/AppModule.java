@@ -30,6 +30,9 @@ import com.squareup.picasso.Picasso;
 import dagger.Module;
 import dagger.Provides;
 import de.halfbit.tinybus.TinyBus;
+import org.bbqapp.android.api.cache.CachedPlaceService;
+import org.bbqapp.android.api.cache.PlaceIndex;
+import org.bbqapp.android.api.cache.PlaceSearchIndex;
 import org.bbqapp.android.api.service.PlaceService;
 import org.bbqapp.android.service.GeocodeService;
 import org.bbqapp.android.service.LocationService;
@@ -65,8 +68,8 @@ public class AppModule {
 
     @Provides
     @Singleton
-    GeocodeService provideGeocodeService(Application context) {
-        return new GeocodeService(context);
+    GeocodeService provideGeocodeService(Application application) {
+        return app.getKodein().getJava().instance(GeocodeService.class);
     }
 
     @Provides
@@ -93,6 +96,24 @@ public class AppModule {
         return app.getKodein().getJava().instance(PlaceService.class);
     }
 
+    @Provides
+    @Singleton
+    CachedPlaceService provideCachedPlaceService(Application application) {
+        return app.getKodein().getJava().instance(CachedPlaceService.class);
+    }
+
+    @Provides
+    @Singleton
+    PlaceIndex providePlaceIndex(Application application) {
+        return app.getKodein().getJava().instance(PlaceIndex.class);
+    }
+
+    @Provides
+    @Singleton
+    PlaceSearchIndex providePlaceSearchIndex(Application application) {
+        return app.getKodein().getJava().instance(PlaceSearchIndex.class);
+    }
+
     @Provides
     @Named("main")
     Scheduler provideMainScheduler() {
@@ -104,4 +125,10 @@ public class AppModule {
     Scheduler provideIoScheduler() {
         return Schedulers.io();
     }
+
+    @Provides
+    @Named("computation")
+    Scheduler provideComputationScheduler() {
+        return Schedulers.computation();
+    }
 }
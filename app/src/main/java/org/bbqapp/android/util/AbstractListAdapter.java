@@ -28,8 +28,11 @@ import android.database.DataSetObserver;
 import android.util.Log;
 import android.view.View;
 import android.view.ViewGroup;
+import android.widget.AbsListView;
 import android.widget.ListAdapter;
 
+import java.lang.ref.WeakReference;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
@@ -37,9 +40,14 @@ import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * Abstract {@link ListAdapter} implementation
+ * <p>
+ * Mutations wrapped in {@link #beginTransaction()} and {@link #commitTransaction()} result in one notification.
+ * The changes are diffed by item id with {@link IdDiff}. If items only changed their content, the visible rows of the
+ * {@link #attachTo(AbsListView) attached} list are rebound instead of notifying a change of the whole data set.
  *
  * @param <T> type of objects to render
  */
@@ -51,6 +59,14 @@ public abstract class AbstractListAdapter<T> implements ListAdapter {
 
     private Map<Object, Integer> itemViewTypeMapping = new HashMap<>();
 
+    private WeakReference<AbsListView> listView;
+
+    private int transactionDepth;
+    private long[] transactionIds;
+    private Set<Long> changedIds = new HashSet<>();
+    private boolean changed;
+    private boolean invalidated;
+
     @Override
     public boolean areAllItemsEnabled() {
         return true;
@@ -81,10 +97,153 @@ public abstract class AbstractListAdapter<T> implements ListAdapter {
         observers.remove(observer);
     }
 
+    /**
+     * Sets this adapter to the list view and rebinds its visible rows if only items change
+     *
+     * @param listView list view to display items
+     */
+    public void attachTo(AbsListView listView) {
+        this.listView = new WeakReference<>(listView);
+        listView.setAdapter(this);
+    }
+
+    /**
+     * Returns the list view this adapter is attached to
+     *
+     * @return attached list view or {@code null}
+     */
+    protected AbsListView getAttachedListView() {
+        AbsListView listView = this.listView != null ? this.listView.get() : null;
+        return listView != null && listView.getAdapter() == this ? listView : null;
+    }
+
+    /**
+     * Starts collecting mutations, transactions may be nested
+     */
+    public void beginTransaction() {
+        if (transactionDepth++ == 0) {
+            transactionIds = getItemIds();
+        }
+    }
+
+    /**
+     * Ends the transaction and notifies observers once about all mutations since the outermost
+     * {@link #beginTransaction()}
+     */
+    public void commitTransaction() {
+        if (transactionDepth <= 0) {
+            throw new IllegalStateException("No transaction to commit");
+        }
+        if (--transactionDepth > 0) {
+            return;
+        }
+
+        long[] oldIds = transactionIds;
+        long[] newIds = getItemIds();
+        Set<Long> changedIds = this.changedIds;
+        boolean changed = this.changed;
+        boolean invalidated = this.invalidated;
+        transactionIds = null;
+        this.changedIds = new HashSet<>();
+        this.changed = false;
+        this.invalidated = false;
+
+        RangeCollector ranges = new RangeCollector();
+        IdDiff.dispatch(oldIds, newIds, changedIds, ranges);
+
+        if (invalidated) {
+            onInvalidated();
+        } else if (changed || ranges.structural || (ranges.changedRanges > 0 && !rebindVisible(ranges))) {
+            onChanged();
+        }
+    }
+
+    /**
+     * Notifies that the content of an item changed without changing its position
+     *
+     * @param item changed item
+     */
+    protected void onItemChanged(T item) {
+        beginTransaction();
+        changedIds.add(getItemId(item));
+        commitTransaction();
+    }
+
+    private long[] getItemIds() {
+        List<T> list = getList();
+        long[] ids = new long[list == null ? 0 : list.size()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = getItemId(list.get(i));
+        }
+        return ids;
+    }
+
+    /**
+     * Rebinds visible rows of changed ranges in place
+     *
+     * @return {@code false} if rows could not be rebound
+     */
+    private boolean rebindVisible(RangeCollector ranges) {
+        AbsListView listView = getAttachedListView();
+        if (listView == null) {
+            return false;
+        }
+
+        int first = listView.getFirstVisiblePosition();
+        int childCount = listView.getChildCount();
+        for (int i = 0; i < ranges.changedRanges; i++) {
+            int start = Math.max(ranges.changedStarts[i], first);
+            int end = Math.min(ranges.changedStarts[i] + ranges.changedCounts[i], first + childCount);
+            for (int position = start; position < end; position++) {
+                View child = listView.getChildAt(position - first);
+                if (getView(position, child, listView) != child) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Remembers whether the structure or only the content changed and which ranges changed their content
+     */
+    private class RangeCollector implements IdDiff.OnListChangeListener {
+        boolean structural;
+        int changedRanges;
+        int[] changedStarts = new int[4];
+        int[] changedCounts = new int[4];
+
+        @Override
+        public void onItemRangeRemoved(int positionStart, int itemCount) {
+            structural = true;
+        }
+
+        @Override
+        public void onItemRangeInserted(int positionStart, int itemCount) {
+            structural = true;
+        }
+
+        @Override
+        public void onItemRangeChanged(int positionStart, int itemCount) {
+            if (changedRanges == changedStarts.length) {
+                changedStarts = Arrays.copyOf(changedStarts, changedRanges * 2);
+                changedCounts = Arrays.copyOf(changedCounts, changedRanges * 2);
+            }
+            changedStarts[changedRanges] = positionStart;
+            changedCounts[changedRanges] = itemCount;
+            changedRanges++;
+        }
+    }
+
     /**
      * Gets called when all data invalidated
      */
     protected void onInvalidated() {
+        if (transactionDepth > 0) {
+            invalidated = true;
+            return;
+        }
+
         itemViewTypeMapping.clear();
 
         for (DataSetObserver observer : observers) {
@@ -100,6 +259,11 @@ public abstract class AbstractListAdapter<T> implements ListAdapter {
      * Get calls when data has been changed
      */
     protected void onChanged() {
+        if (transactionDepth > 0) {
+            changed = true;
+            return;
+        }
+
         for (DataSetObserver observer : observers) {
             try {
                 observer.onChanged();
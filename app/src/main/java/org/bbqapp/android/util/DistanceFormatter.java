@@ -25,13 +25,18 @@
 package org.bbqapp.android.util;
 
 import java.text.DecimalFormat;
+import java.text.DecimalFormatSymbols;
+import java.text.FieldPosition;
 import java.util.Arrays;
 import java.util.Collections;
-import java.util.List;
+import java.util.HashSet;
 import java.util.Locale;
+import java.util.Set;
 
 /**
- * Formats distance in meters to human readable text
+ * Formats distance in meters to human readable text.
+ * <p>
+ * Number formats are created once per thread and locale and write into a reused buffer.
  */
 public class DistanceFormatter {
     public static final String METER_UNIT = "m";
@@ -41,11 +46,25 @@ public class DistanceFormatter {
     private static final double METERS_IN_ONE_MILE = 1_609.344d;
     private static final double FEET_IN_ONE_MILE = 5280d;
 
-    private static final List<String> COUNTRIES_WITH_IMPERIAL_UNIT = Collections.unmodifiableList(Arrays.asList(
-            "US", "LR", "MM"));
+    private static final Set<String> COUNTRIES_WITH_IMPERIAL_UNIT = Collections.unmodifiableSet(new HashSet<>(
+            Arrays.asList("US", "LR", "MM")));
 
     protected static final String VALUE_UNIT_SEPARATOR = " ";
 
+    // scales of a distance, each with its own pattern, fraction digits and unit
+    static final int METERS = 0;
+    static final int KILOMETERS_FRACTION = 1;
+    static final int KILOMETERS = 2;
+    static final int FEET = 3;
+    static final int MILES_FRACTION = 4;
+    static final int MILES = 5;
+
+    private static final String[] PATTERNS = {"#,###", "#,###.#", "#,###", "###", "#,###.##", "#,###"};
+    private static final double[] FRACTION_FACTORS = {1, 10, 1, 1, 100, 1};
+    private static final String[] UNITS = {METER_UNIT, KILOMETER_UNIT, KILOMETER_UNIT, FEET_UNIT, MILE_UNIT, MILE_UNIT};
+
+    private static final ThreadLocal<Formats> FORMATS = new ThreadLocal<>();
+
     public enum Unit {
         METRIC,
         IMPERIAL
@@ -62,8 +81,8 @@ public class DistanceFormatter {
     }
 
     public static String format(double meters, Locale locale) {
-
-        return format(meters, getUnits(locale));
+        Formats formats = getFormats(locale);
+        return formats.format(meters, formats.unit);
     }
 
     protected static Unit getUnits(Locale locale) {
@@ -74,44 +93,108 @@ public class DistanceFormatter {
         return Unit.METRIC;
     }
 
+    protected static String formatMetric(double meters) {
+        return getFormats(Locale.getDefault()).format(meters, Unit.METRIC);
+    }
+
+    protected static String formatImperial(double meters) {
+        return getFormats(Locale.getDefault()).format(meters, Unit.IMPERIAL);
+    }
 
     /**
-     * Formats distance in meters to human readable string
+     * Returns the scale used to display the distance
      *
-     * @param meters distance to format
-     * @param system unit system to use
-     * @return human readable distance text
+     * @param meters distance in meters
+     * @param unit   unit system
+     * @return one of {@link #METERS}, {@link #KILOMETERS_FRACTION}, {@link #KILOMETERS}, {@link #FEET},
+     * {@link #MILES_FRACTION} or {@link #MILES}
      */
-    private static String format(double meters, Unit system) {
-        switch (system) {
-            case IMPERIAL:
-                return formatImperial(meters);
-            default:
-                return formatMetric(meters);
+    static int getScale(double meters, Unit unit) {
+        if (unit == Unit.IMPERIAL) {
+            double absMiles = Math.abs(meters / METERS_IN_ONE_MILE);
+            if (absMiles * FEET_IN_ONE_MILE < FEET_IN_ONE_MILE / 10) {
+                return FEET;
+            } else if (absMiles < 1_000) {
+                return MILES_FRACTION;
+            }
+            return MILES;
         }
-    }
 
-    protected static String formatMetric(double meters) {
         double absMeters = Math.abs(meters);
         if (absMeters < 1_000) {
-            return new DecimalFormat("#,###").format(meters) + VALUE_UNIT_SEPARATOR + METER_UNIT;
+            return METERS;
         } else if (absMeters < 100_000) {
-            return new DecimalFormat("#,###.#").format(meters / 1_000d) + VALUE_UNIT_SEPARATOR + KILOMETER_UNIT;
-        } else {
-            return new DecimalFormat("#,###").format(meters / 1_000d) + VALUE_UNIT_SEPARATOR + KILOMETER_UNIT;
+            return KILOMETERS_FRACTION;
         }
+        return KILOMETERS;
     }
 
-    protected static String formatImperial(double meters) {
-        double miles = meters / METERS_IN_ONE_MILE;
-        double absMiles = Math.abs(miles);
-
-        if (absMiles * FEET_IN_ONE_MILE < FEET_IN_ONE_MILE / 10) {
-            return new DecimalFormat("###").format(miles * FEET_IN_ONE_MILE) + VALUE_UNIT_SEPARATOR + FEET_UNIT;
-        } else if (absMiles < 1_000) {
-            return new DecimalFormat("#,###.##").format(miles) + VALUE_UNIT_SEPARATOR + MILE_UNIT;
-        } else {
-            return new DecimalFormat("#,###").format(miles) + VALUE_UNIT_SEPARATOR + MILE_UNIT;
+    /**
+     * Returns the distance in the unit of the scale
+     */
+    static double getValue(double meters, int scale) {
+        switch (scale) {
+            case METERS:
+                return meters;
+            case KILOMETERS_FRACTION:
+            case KILOMETERS:
+                return meters / 1_000d;
+            case FEET:
+                return meters / METERS_IN_ONE_MILE * FEET_IN_ONE_MILE;
+            default:
+                return meters / METERS_IN_ONE_MILE;
+        }
+    }
+
+    /**
+     * Returns the displayed digits of the distance rounded half up, two distances with the same scale and displayed
+     * digits result in the same text
+     */
+    static double getDisplayedDigits(double meters, int scale) {
+        double value = getValue(meters, scale) * FRACTION_FACTORS[scale];
+        return Math.signum(value) * Math.floor(Math.abs(value) + 0.5);
+    }
+
+    static Unit getUnit(Locale locale) {
+        return getFormats(locale).unit;
+    }
+
+    private static Formats getFormats(Locale locale) {
+        Formats formats = FORMATS.get();
+        if (formats == null || !formats.locale.equals(locale)) {
+            formats = new Formats(locale);
+            FORMATS.set(formats);
+        }
+        return formats;
+    }
+
+    /**
+     * Number formats of one locale, confined to one thread as {@link DecimalFormat} is not thread safe
+     */
+    private static final class Formats {
+        final Locale locale;
+        final Unit unit;
+        final DecimalFormat[] formats = new DecimalFormat[PATTERNS.length];
+        final StringBuffer buffer = new StringBuffer(16);
+        final FieldPosition position = new FieldPosition(0);
+
+        Formats(Locale locale) {
+            this.locale = locale;
+            this.unit = getUnits(locale);
+
+            DecimalFormatSymbols symbols = DecimalFormatSymbols.getInstance(locale);
+            for (int i = 0; i < PATTERNS.length; i++) {
+                formats[i] = new DecimalFormat(PATTERNS[i], symbols);
+            }
+        }
+
+        String format(double meters, Unit unit) {
+            int scale = getScale(meters, unit);
+
+            // format the displayed digits so the text always matches getDisplayedDigits
+            buffer.setLength(0);
+            formats[scale].format(getDisplayedDigits(meters, scale) / FRACTION_FACTORS[scale], buffer, position);
+            return buffer.append(VALUE_UNIT_SEPARATOR).append(UNITS[scale]).toString();
         }
     }
 }
@@ -0,0 +1,77 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 bbqapp
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.bbqapp.android.util;
+
+import java.util.Locale;
+
+/**
+ * Formatted distance of one view which is only reformatted when the displayed value changes
+ */
+public class DistanceText {
+    private final Locale locale;
+    private final DistanceFormatter.Unit unit;
+    private int scale = -1;
+    private double digits;
+    private String text;
+
+    public DistanceText() {
+        this(Locale.getDefault());
+    }
+
+    public DistanceText(Locale locale) {
+        this.locale = locale;
+        this.unit = DistanceFormatter.getUnit(locale);
+    }
+
+    /**
+     * Updates the distance
+     *
+     * @param meters distance in meters
+     * @return {@code true} if the text has been changed, otherwise {@code false}
+     */
+    public boolean update(double meters) {
+        int scale = DistanceFormatter.getScale(meters, unit);
+        double digits = DistanceFormatter.getDisplayedDigits(meters, scale);
+        if (text != null && scale == this.scale && digits == this.digits) {
+            return false;
+        }
+
+        this.scale = scale;
+        this.digits = digits;
+        this.text = DistanceFormatter.format(meters, locale);
+        return true;
+    }
+
+    /**
+     * Forgets the distance, the next {@link #update(double)} changes the text
+     */
+    public void reset() {
+        text = null;
+    }
+
+    public String getText() {
+        return text;
+    }
+}
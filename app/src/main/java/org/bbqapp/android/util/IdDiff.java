@@ -0,0 +1,178 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 bbqapp
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.bbqapp.android.util;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Computes range based changes between two lists identified by stable ids
+ */
+public final class IdDiff {
+
+    /**
+     * Receives changes in the order they have to be applied to the old list to get the new list
+     */
+    public interface OnListChangeListener {
+        void onItemRangeRemoved(int positionStart, int itemCount);
+
+        void onItemRangeInserted(int positionStart, int itemCount);
+
+        /**
+         * Positions refer to the new list, items have been changed but kept their position
+         */
+        void onItemRangeChanged(int positionStart, int itemCount);
+    }
+
+    private IdDiff() {
+    }
+
+    /**
+     * Dispatches removals in descending order, then insertions in ascending order, then changes. Items whose order
+     * changed are reported as removed and inserted, the longest sequence of items in unchanged order is kept.
+     * If ids are not unique everything is reported as removed and inserted.
+     *
+     * @param oldIds     ids of the old list
+     * @param newIds     ids of the new list
+     * @param changedIds ids of items whose content changed
+     * @param listener   listener to notify
+     */
+    public static void dispatch(long[] oldIds, long[] newIds, Set<Long> changedIds, OnListChangeListener listener) {
+        Map<Long, Integer> newPositions = new HashMap<>(newIds.length * 2);
+        for (int i = 0; i < newIds.length; i++) {
+            if (newPositions.put(newIds[i], i) != null) {
+                replaceAll(oldIds.length, newIds.length, listener);
+                return;
+            }
+        }
+
+        // new position of every old item, -1 if removed
+        int[] positions = new int[oldIds.length];
+        Set<Long> oldIdSet = new HashSet<>(oldIds.length * 2);
+        for (int i = 0; i < oldIds.length; i++) {
+            if (!oldIdSet.add(oldIds[i])) {
+                replaceAll(oldIds.length, newIds.length, listener);
+                return;
+            }
+            Integer position = newPositions.get(oldIds[i]);
+            positions[i] = position == null ? -1 : position;
+        }
+
+        boolean[] keptOld = longestIncreasingSubsequence(positions);
+        boolean[] keptNew = new boolean[newIds.length];
+        for (int i = 0; i < positions.length; i++) {
+            if (keptOld[i]) {
+                keptNew[positions[i]] = true;
+            }
+        }
+
+        // removals from the end so earlier positions stay valid
+        int end = -1;
+        for (int i = oldIds.length - 1; i >= -1; i--) {
+            boolean removed = i >= 0 && !keptOld[i];
+            if (removed && end < 0) {
+                end = i;
+            } else if (!removed && end >= 0) {
+                listener.onItemRangeRemoved(i + 1, end - i);
+                end = -1;
+            }
+        }
+
+        // insertions from the start, everything before an inserted item is already in place
+        int start = -1;
+        for (int i = 0; i <= newIds.length; i++) {
+            boolean inserted = i < newIds.length && !keptNew[i];
+            if (inserted && start < 0) {
+                start = i;
+            } else if (!inserted && start >= 0) {
+                listener.onItemRangeInserted(start, i - start);
+                start = -1;
+            }
+        }
+
+        if (changedIds == null || changedIds.isEmpty()) {
+            return;
+        }
+        start = -1;
+        for (int i = 0; i <= newIds.length; i++) {
+            boolean changed = i < newIds.length && keptNew[i] && changedIds.contains(newIds[i]);
+            if (changed && start < 0) {
+                start = i;
+            } else if (!changed && start >= 0) {
+                listener.onItemRangeChanged(start, i - start);
+                start = -1;
+            }
+        }
+    }
+
+    private static void replaceAll(int oldCount, int newCount, OnListChangeListener listener) {
+        if (oldCount > 0) {
+            listener.onItemRangeRemoved(0, oldCount);
+        }
+        if (newCount > 0) {
+            listener.onItemRangeInserted(0, newCount);
+        }
+    }
+
+    /**
+     * Marks the longest strictly increasing subsequence of non-negative values in O(n log n)
+     */
+    static boolean[] longestIncreasingSubsequence(int[] values) {
+        // tails[k] is the index of the smallest tail of all increasing subsequences of length k + 1
+        int[] tails = new int[values.length];
+        int[] predecessors = new int[values.length];
+        int length = 0;
+        for (int i = 0; i < values.length; i++) {
+            if (values[i] < 0) {
+                continue;
+            }
+
+            int low = 0;
+            int high = length;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (values[tails[middle]] < values[i]) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+
+            predecessors[i] = low > 0 ? tails[low - 1] : -1;
+            tails[low] = i;
+            if (low == length) {
+                length++;
+            }
+        }
+
+        boolean[] kept = new boolean[values.length];
+        for (int i = length > 0 ? tails[length - 1] : -1; i >= 0; i = predecessors[i]) {
+            kept[i] = true;
+        }
+        return kept;
+    }
+}
@@ -29,6 +29,7 @@ import android.support.v4.app.Fragment;
 import org.bbqapp.android.view.create.CreateFragment;
 import org.bbqapp.android.view.list.ListFragment;
 import org.bbqapp.android.view.login.LoginFragment;
+import org.bbqapp.android.view.search.SearchFragment;
 
 import javax.inject.Singleton;
 
@@ -41,6 +42,7 @@ import dagger.Provides;
                 CreateFragment.class,
                 ListFragment.class,
                 LoginFragment.class,
+                SearchFragment.class,
         },
         library = true
 )
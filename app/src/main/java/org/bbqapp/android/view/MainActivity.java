@@ -49,6 +49,7 @@ import org.bbqapp.android.view.create.CreateFragment;
 import org.bbqapp.android.view.list.ListFragment;
 import org.bbqapp.android.view.login.LoginFragment;
 import org.bbqapp.android.view.map.MapFragment;
+import org.bbqapp.android.view.search.SearchFragment;
 
 import java.util.HashMap;
 import java.util.Map;
@@ -195,6 +196,9 @@ public class MainActivity extends BaseActivity {
                 case LIST:
                     fragment = new ListFragment();
                     break;
+                case SEARCH:
+                    fragment = new SearchFragment();
+                    break;
                 case CREATE:
                     fragment = new CreateFragment();
                     break;
@@ -50,7 +50,7 @@ public class MenuAdapter extends AbstractListAdapter<MenuAdapter.Entry> {
 
     public MenuAdapter(final LayoutInflater inflater, final ListView listView) {
         this.inflater = inflater;
-        listView.setAdapter(this);
+        attachTo(listView);
         listView.setOnItemClickListener(new AdapterView.OnItemClickListener() {
             @Override
             public void onItemClick(AdapterView<?> parent, View view, int position, long id) {
@@ -136,8 +136,9 @@ public class MenuAdapter extends AbstractListAdapter<MenuAdapter.Entry> {
     }
 
     public void remove(Entry entry) {
+        beginTransaction();
         entries.remove(entry);
-        onInvalidated();
+        commitTransaction();
     }
 
     public <T extends Entry> T add(T entry) {
@@ -152,8 +153,9 @@ public class MenuAdapter extends AbstractListAdapter<MenuAdapter.Entry> {
             throw new IllegalArgumentException("You can't add more elements because footer already inserted.");
         }
 
+        beginTransaction();
         entries.add(entry);
-        onInvalidated();
+        commitTransaction();
         return entry;
     }
 
@@ -276,7 +278,7 @@ public class MenuAdapter extends AbstractListAdapter<MenuAdapter.Entry> {
         public void setString(String string) {
             this.string = string;
             this.stringResource = 0;
-            onChanged();
+            onItemChanged(this);
         }
 
         public int getStringResource() {
@@ -286,7 +288,7 @@ public class MenuAdapter extends AbstractListAdapter<MenuAdapter.Entry> {
         public void setStringResource(int stringResource) {
             this.stringResource = stringResource;
             this.string = null;
-            onChanged();
+            onItemChanged(this);
         }
 
         @Override
@@ -351,7 +353,7 @@ public class MenuAdapter extends AbstractListAdapter<MenuAdapter.Entry> {
         public void setImageResource(Integer imageResource) {
             clearImages();
             this.imageResource = imageResource;
-            onChanged();
+            onItemChanged(this);
         }
 
         public Bitmap getImageBitmap() {
@@ -361,7 +363,7 @@ public class MenuAdapter extends AbstractListAdapter<MenuAdapter.Entry> {
         public void setImageBitmap(Bitmap imageBitmap) {
             clearImages();
             this.imageBitmap = imageBitmap;
-            onChanged();
+            onItemChanged(this);
         }
 
         public Drawable getImageDrawable() {
@@ -371,6 +373,7 @@ public class MenuAdapter extends AbstractListAdapter<MenuAdapter.Entry> {
         public void setImageDrawable(Drawable imageDrawable) {
             clearImages();
             this.imageDrawable = imageDrawable;
+            onItemChanged(this);
         }
     }
 
@@ -39,9 +39,6 @@ import android.view.ViewGroup;
 import android.widget.*;
 import butterknife.Bind;
 import butterknife.OnClick;
-import com.annimon.stream.Collectors;
-import com.annimon.stream.Stream;
-import com.annimon.stream.function.Function;
 import com.squareup.picasso.Picasso;
 import org.bbqapp.android.R;
 import org.bbqapp.android.api.model.Id;
@@ -49,6 +46,7 @@ import org.bbqapp.android.api.model.Picture;
 import org.bbqapp.android.api.model.Place;
 import org.bbqapp.android.api.service.PlaceService;
 import org.bbqapp.android.service.GeocodeService;
+import org.bbqapp.android.service.LocationPolicy;
 import org.bbqapp.android.service.LocationService;
 import org.bbqapp.android.view.BaseFragment;
 import rx.Observable;
@@ -129,7 +127,7 @@ public class CreateFragment extends BaseFragment {
 
         getActivity().setTitle(R.string.menu_create);
 
-        subscriber = locationService.getLocation()
+        subscriber = locationService.getLocation(LocationPolicy.PRECISE)
                 .filter(new Func1<Location, Boolean>() {
                     @Override
                     public Boolean call(Location location) {
@@ -273,15 +271,12 @@ public class CreateFragment extends BaseFragment {
     @OnClick(R.id.view_create_create)
     protected void create() {
         String coordinatesString = locationEditText.getText().toString();
-        List<Double> coordinates = Stream.of(coordinatesString.split(","))
-                .map(new Function<String, Double>() {
-                    @Override
-                    public Double apply(String value) {
-                        return Double.valueOf(value.trim());
-                    }
-                }).collect(Collectors.<Double>toList());
+        String[] coordinates = coordinatesString.split(",");
+        double latitude = Double.parseDouble(coordinates[0].trim());
+        double longitude = Double.parseDouble(coordinates[1].trim());
 
-        final Place place = new Place(null, null, null, new org.bbqapp.android.api.model.Location(coordinates, "Point"), null);
+        final Place place = new Place(null, null, null,
+                new org.bbqapp.android.api.model.Location(latitude, longitude, "Point"), null);
 
         setProgress("Preparing...", null);
 
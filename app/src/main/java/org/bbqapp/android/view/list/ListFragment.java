@@ -29,13 +29,15 @@ import android.os.Bundle;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
+import android.widget.AbsListView;
 import android.widget.ListView;
 import android.widget.Toast;
 
 import org.bbqapp.android.R;
+import org.bbqapp.android.api.cache.CachedPlaceService;
+import org.bbqapp.android.api.cache.PlaceIndex;
 import org.bbqapp.android.api.model.Place;
 import org.bbqapp.android.service.LocationService;
-import org.bbqapp.android.api.service.PlaceService;
 import org.bbqapp.android.view.BaseFragment;
 
 import java.util.List;
@@ -45,18 +47,20 @@ import javax.inject.Named;
 
 import butterknife.Bind;
 import rx.Scheduler;
-import rx.Subscriber;
 import rx.Subscription;
 import rx.functions.Action1;
-import rx.schedulers.Schedulers;
 
 /**
  * Fragment to display places in a clickable list
  */
-public class ListFragment extends BaseFragment {
+public class ListFragment extends BaseFragment implements PlacePager.Listener, AbsListView.OnScrollListener {
+    private static final int MAX_INDEXED_PLACES = PlacePager.DEFAULT_PAGE_SIZE;
+    // number of rows before the start or end of the window at which the adjacent page gets loaded
+    private static final int PREFETCH_DISTANCE = 15;
 
     @Bind(R.id.places_list) ListView placeList;
     private PlaceListAdapter placeAdapter;
+    private PlacePager placePager;
     private Subscription locationSubscription;
 
     @Inject
@@ -66,10 +70,18 @@ public class ListFragment extends BaseFragment {
     LocationService locationService;
 
     @Inject
-    PlaceService placeService;
+    CachedPlaceService cachedPlaceService;
+    @Inject
+    PlaceIndex placeIndex;
     @Inject
     @Named("main")
     Scheduler scheduler;
+    @Inject
+    @Named("io")
+    Scheduler ioScheduler;
+    @Inject
+    @Named("computation")
+    Scheduler computationScheduler;
 
     @Override
     public View onCreateView(LayoutInflater inflater, ViewGroup container, Bundle savedInstanceState) {
@@ -80,50 +92,86 @@ public class ListFragment extends BaseFragment {
     public void onResume() {
         super.onResume();
 
-        placeAdapter = new PlaceListAdapter(layoutInflater);
-        placeList.setAdapter(placeAdapter);
+        placeAdapter = new PlaceListAdapter(layoutInflater, computationScheduler, scheduler);
+        placeAdapter.attachTo(placeList);
+        placeList.setOnScrollListener(this);
+        placePager = new PlacePager(cachedPlaceService, ioScheduler, scheduler, this);
 
         getActivity().setTitle(R.string.menu_list);
-        locationSubscription = locationService.getLocation().subscribe(new Action1<Location>() {
-            @Override
-            public void call(Location location) {
-                onLocationChanged(location);
-            }
-        });
+        locationSubscription = locationService.getSignificantLocation()
+                .observeOn(scheduler)
+                .subscribe(new Action1<Location>() {
+                    @Override
+                    public void call(Location location) {
+                        onLocationChanged(location);
+                    }
+                });
     }
 
     @Override
     public void onPause() {
         super.onPause();
         locationSubscription.unsubscribe();
+        placePager.stop();
+        placeList.setOnScrollListener(null);
+        placeAdapter.destroy();
     }
 
+    /**
+     * Re-sorts the list around every significant fix. Paging restarts only while still on the first page, e.g. after a
+     * persisted fix from another place, or once the fix left the loaded window, so scrolled pages are kept otherwise.
+     */
     public void onLocationChanged(Location location) {
         placeAdapter.setLocation(location);
+        if (!placePager.shouldRestart(location)) {
+            return;
+        }
+
+        // display known places at once, the first page replaces them
+        if (placeIndex.getSize() > 0) {
+            placeAdapter.setPlaces(placeIndex.nearest(location.getLatitude(), location.getLongitude(),
+                    MAX_INDEXED_PLACES));
+        }
+
+        placePager.stop();
+        placePager.start(location);
+    }
 
-        if (placeAdapter.getList() == null) {
-            placeService.getPlaces(location, 10000)
-                    .subscribeOn(Schedulers.io())
-                    .observeOn(scheduler)
-                    .unsubscribeOn(Schedulers.io())
-                    .subscribe(new Subscriber<List<Place>>() {
-                        @Override
-                        public void onCompleted() {
-                        }
-
-                        @Override
-                        public void onError(Throwable e) {
-                            Toast.makeText(getActivity(),
-                                    "Could not retrieve places: " + e.getMessage(),
-                                    Toast.LENGTH_SHORT).show();
-                        }
-
-                        @Override
-                        public void onNext(List<Place> places) {
-                            placeAdapter.setPlaces(places);
-                        }
-                    });
+    @Override
+    public void onPlaces(List<Place> places, final int shift) {
+        Runnable keepPosition = null;
+        if (shift != 0) {
+            keepPosition = new Runnable() {
+                @Override
+                public void run() {
+                    View first = placeList.getChildAt(0);
+                    placeList.setSelectionFromTop(Math.max(0, placeList.getFirstVisiblePosition() + shift),
+                            first == null ? 0 : first.getTop());
+                }
+            };
         }
+        placeAdapter.setPlaces(places, keepPosition);
+    }
+
+    @Override
+    public void onError(Throwable e) {
+        Toast.makeText(getActivity(), "Could not retrieve places: " + e.getMessage(), Toast.LENGTH_SHORT).show();
+    }
+
+    @Override
+    public void onScrollStateChanged(AbsListView view, int scrollState) {
     }
 
+    @Override
+    public void onScroll(AbsListView view, int firstVisibleItem, int visibleItemCount, int totalItemCount) {
+        if (totalItemCount == 0) {
+            return;
+        }
+
+        if (firstVisibleItem + visibleItemCount >= totalItemCount - PREFETCH_DISTANCE) {
+            placePager.loadNext();
+        } else if (firstVisibleItem <= PREFETCH_DISTANCE) {
+            placePager.loadPrevious();
+        }
+    }
 }
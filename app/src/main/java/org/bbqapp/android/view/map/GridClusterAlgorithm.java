@@ -0,0 +1,358 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 bbqapp
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.bbqapp.android.view.map;
+
+import com.google.android.gms.maps.model.LatLng;
+import com.google.maps.android.clustering.Cluster;
+import com.google.maps.android.clustering.ClusterItem;
+import com.google.maps.android.clustering.algo.Algorithm;
+import com.google.maps.android.clustering.algo.StaticCluster;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Grid based cluster {@link Algorithm} which keeps projected item coordinates in flat {@code double[]} arrays.
+ * <p/>
+ * Items are assigned to square grid cells of {@link #GRID_SIZE} dp in a single pass without allocating per item.
+ * Clusters of neighbouring zoom levels are computed ahead on a background executor. Running computations are
+ * abandoned when items change, when the calling thread gets interrupted or when the requested zoom moved on.
+ *
+ * @param <T> type of clustered items
+ */
+public class GridClusterAlgorithm<T extends ClusterItem> implements Algorithm<T> {
+    private static final int GRID_SIZE = 100;
+    private static final int TILE_SIZE = 256;
+    private static final int CANCEL_CHECK_INTERVAL = 1024;
+    private static final double MAX_LATITUDE = 85.05112878;
+    private static final long KEEP_ALIVE_SECONDS = 30;
+
+    // shared by all instances created without an executor, its thread ends when idle so nothing needs a shutdown
+    private static final ExecutorService SHARED_EXECUTOR = createSharedExecutor();
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final ExecutorService executor;
+
+    // items and their spherical mercator coordinates in range 0..1
+    private final List<T> items = new ArrayList<>();
+    private final Map<T, Integer> indices = new HashMap<>();
+    private double[] xs = new double[16];
+    private double[] ys = new double[16];
+
+    // incremented on every modification to abandon running computations
+    private final AtomicInteger version = new AtomicInteger();
+    private volatile int requestedZoom = -1;
+
+    private final Map<Integer, Set<Cluster<T>>> cache = new HashMap<>();
+    private final Map<Integer, Future<?>> precomputations = new HashMap<>();
+
+    /**
+     * Creates an algorithm which precomputes on a single background thread shared by all such instances
+     */
+    public GridClusterAlgorithm() {
+        this(SHARED_EXECUTOR);
+    }
+
+    public GridClusterAlgorithm(ExecutorService executor) {
+        this.executor = executor;
+    }
+
+    private static ExecutorService createSharedExecutor() {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(1, 1, KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, GridClusterAlgorithm.class.getSimpleName());
+                thread.setDaemon(true);
+                thread.setPriority(Thread.MIN_PRIORITY);
+                return thread;
+            }
+        });
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    @Override
+    public void addItem(T item) {
+        addItems(Collections.singletonList(item));
+    }
+
+    @Override
+    public void addItems(Collection<T> newItems) {
+        modify();
+        lock.writeLock().lock();
+        try {
+            ensureCapacity(items.size() + newItems.size());
+            for (T item : newItems) {
+                if (indices.containsKey(item)) {
+                    continue;
+                }
+                int index = items.size();
+                LatLng position = item.getPosition();
+                xs[index] = toX(position.longitude);
+                ys[index] = toY(position.latitude);
+                indices.put(item, index);
+                items.add(item);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void clearItems() {
+        modify();
+        lock.writeLock().lock();
+        try {
+            items.clear();
+            indices.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void removeItem(T item) {
+        modify();
+        lock.writeLock().lock();
+        try {
+            Integer index = indices.remove(item);
+            if (index == null) {
+                return;
+            }
+
+            // move last item into the gap
+            int last = items.size() - 1;
+            T lastItem = items.remove(last);
+            if (index != last) {
+                items.set(index, lastItem);
+                xs[index] = xs[last];
+                ys[index] = ys[last];
+                indices.put(lastItem, index);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public Set<? extends Cluster<T>> getClusters(double zoom) {
+        int discreteZoom = (int) zoom;
+        requestedZoom = discreteZoom;
+
+        Set<Cluster<T>> clusters = getCached(discreteZoom);
+        while (clusters == null) {
+            if (Thread.currentThread().isInterrupted()) {
+                return Collections.emptySet();
+            }
+            clusters = compute(discreteZoom, true);
+        }
+
+        precompute(discreteZoom - 1);
+        precompute(discreteZoom + 1);
+
+        return clusters;
+    }
+
+    @Override
+    public Collection<T> getItems() {
+        lock.readLock().lock();
+        try {
+            return new ArrayList<>(items);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private Set<Cluster<T>> getCached(int zoom) {
+        synchronized (cache) {
+            return cache.get(zoom);
+        }
+    }
+
+    private void modify() {
+        version.incrementAndGet();
+        synchronized (cache) {
+            cache.clear();
+            for (Future<?> future : precomputations.values()) {
+                future.cancel(false);
+            }
+            precomputations.clear();
+        }
+    }
+
+    private void precompute(final int zoom) {
+        if (zoom < 0) {
+            return;
+        }
+
+        synchronized (cache) {
+            // precomputations of zoom levels far from the requested one are obsolete
+            for (Map.Entry<Integer, Future<?>> entry : precomputations.entrySet()) {
+                if (Math.abs(entry.getKey() - requestedZoom) > 1) {
+                    entry.getValue().cancel(false);
+                }
+            }
+
+            if (cache.containsKey(zoom) || (precomputations.containsKey(zoom) && !precomputations.get(zoom).isDone())) {
+                return;
+            }
+
+            precomputations.put(zoom, executor.submit(new Runnable() {
+                @Override
+                public void run() {
+                    if (Math.abs(zoom - requestedZoom) <= 1) {
+                        compute(zoom, false);
+                    }
+                }
+            }));
+        }
+    }
+
+    /**
+     * Clusters all items for the zoom level and caches the result
+     *
+     * @param zoom       discrete zoom level
+     * @param foreground {@code true} if the zoom level is requested, otherwise it is computed ahead
+     * @return clusters or {@code null} if the computation was abandoned
+     */
+    private Set<Cluster<T>> compute(int zoom, boolean foreground) {
+        int startVersion = version.get();
+
+        lock.readLock().lock();
+        try {
+            int size = items.size();
+            double cellSize = (double) GRID_SIZE / TILE_SIZE / (1 << zoom);
+
+            // open addressing hash of cell keys to cluster indices
+            int capacity = Integer.highestOneBit(Math.max(size, 1) * 2) * 2;
+            long[] cellKeys = new long[capacity];
+            int[] cellClusters = new int[capacity];
+            Arrays.fill(cellClusters, -1);
+
+            int[] itemClusters = new int[size];
+            int[] clusterSizes = new int[size];
+            double[] sumXs = new double[size];
+            double[] sumYs = new double[size];
+            int clusterCount = 0;
+
+            for (int i = 0; i < size; i++) {
+                if (i % CANCEL_CHECK_INTERVAL == 0 && isAbandoned(startVersion, zoom, foreground)) {
+                    return null;
+                }
+
+                long key = ((long) (xs[i] / cellSize) << 32) | ((long) (ys[i] / cellSize) & 0xffffffffL);
+                int slot = hash(key) & (capacity - 1);
+                while (cellClusters[slot] != -1 && cellKeys[slot] != key) {
+                    slot = (slot + 1) & (capacity - 1);
+                }
+                if (cellClusters[slot] == -1) {
+                    cellKeys[slot] = key;
+                    cellClusters[slot] = clusterCount++;
+                }
+
+                int cluster = cellClusters[slot];
+                itemClusters[i] = cluster;
+                clusterSizes[cluster]++;
+                sumXs[cluster] += xs[i];
+                sumYs[cluster] += ys[i];
+            }
+
+            List<StaticCluster<T>> clusters = new ArrayList<>(clusterCount);
+            for (int c = 0; c < clusterCount; c++) {
+                clusters.add(new StaticCluster<T>(new LatLng(
+                        toLatitude(sumYs[c] / clusterSizes[c]), toLongitude(sumXs[c] / clusterSizes[c]))));
+            }
+            for (int i = 0; i < size; i++) {
+                clusters.get(itemClusters[i]).add(items.get(i));
+            }
+
+            Set<Cluster<T>> result = Collections.<Cluster<T>>unmodifiableSet(new HashSet<>(clusters));
+            synchronized (cache) {
+                if (version.get() != startVersion) {
+                    return null;
+                }
+                cache.put(zoom, result);
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private boolean isAbandoned(int startVersion, int zoom, boolean foreground) {
+        return version.get() != startVersion
+                || Thread.currentThread().isInterrupted()
+                || (!foreground && Math.abs(zoom - requestedZoom) > 1);
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (xs.length < capacity) {
+            int newCapacity = Math.max(capacity, xs.length * 2);
+            xs = Arrays.copyOf(xs, newCapacity);
+            ys = Arrays.copyOf(ys, newCapacity);
+        }
+    }
+
+    private static int hash(long key) {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        return (int) key;
+    }
+
+    private static double toX(double longitude) {
+        return longitude / 360d + 0.5d;
+    }
+
+    private static double toY(double latitude) {
+        double sin = Math.sin(Math.toRadians(Math.max(-MAX_LATITUDE, Math.min(MAX_LATITUDE, latitude))));
+        return 0.5d - Math.log((1 + sin) / (1 - sin)) / (4 * Math.PI);
+    }
+
+    private static double toLongitude(double x) {
+        return (x - 0.5d) * 360d;
+    }
+
+    private static double toLatitude(double y) {
+        return 90d - Math.toDegrees(Math.atan(Math.exp((y - 0.5d) * 2 * Math.PI))) * 2;
+    }
+}
@@ -46,36 +46,62 @@ import com.sothree.slidinguppanel.SlidingUpPanelLayout;
 import com.squareup.picasso.Picasso;
 
 import org.bbqapp.android.R;
+import org.bbqapp.android.api.cache.CachedPlaceService;
+import org.bbqapp.android.api.cache.PlaceIndex;
+import org.bbqapp.android.api.cache.Tile;
 import org.bbqapp.android.api.model.PictureInfo;
 import org.bbqapp.android.api.model.Place;
+import org.bbqapp.android.service.LocationPolicy;
 import org.bbqapp.android.service.LocationService;
 import org.bbqapp.android.api.service.PlaceService;
 import org.bbqapp.android.view.BaseFragment;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Random;
+import java.util.concurrent.TimeUnit;
 
 import javax.inject.Inject;
 import javax.inject.Named;
 
 import butterknife.Bind;
 import butterknife.ButterKnife;
+import rx.Observable;
 import rx.Scheduler;
 import rx.Subscriber;
 import rx.Subscription;
+import rx.functions.Action0;
 import rx.functions.Action1;
-import rx.schedulers.Schedulers;
+import rx.functions.Func1;
+import rx.subjects.PublishSubject;
 import timber.log.Timber;
 
 public class MapFragment extends BaseFragment implements OnMapReadyCallback, LocationSource,
         GoogleMap.OnMapClickListener, GoogleMap.OnCameraChangeListener, PlaceClusterManager.OnPlaceSelectionListener {
     private static final String TAG = MapFragment.class.getName();
+    private static final int MIN_TILE_ZOOM = 2;
+    private static final int MAX_TILE_ZOOM = 12;
+    private static final int MAX_VISIBLE_TILES = 16;
+    private static final int MAX_LOADED_TILES = 64;
+    private static final long CAMERA_IDLE_TIMEOUT = 300;
 
     private GoogleMap map;
     private Subscription locationSubscription;
+    private Subscription placesSubscription;
+    private final PublishSubject<CameraPosition> cameraPositions = PublishSubject.create();
     private Location lastLocation;
     private boolean mapAnimated = false;
 
+    // requested tiles in access order, true once loaded completely, least recently displayed tiles are dropped first
+    private final Map<Tile, Boolean> tiles = new LinkedHashMap<Tile, Boolean>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Tile, Boolean> eldest) {
+            return size() > MAX_LOADED_TILES;
+        }
+    };
+
     @Bind(R.id.view_detail_image)
     ImageView imageView;
     @Bind(R.id.view_detail_bottom)
@@ -88,6 +114,10 @@ public class MapFragment extends BaseFragment implements OnMapReadyCallback, Loc
     @Inject
     PlaceService placeService;
     @Inject
+    CachedPlaceService cachedPlaceService;
+    @Inject
+    PlaceIndex placeIndex;
+    @Inject
     @Named("main")
     Scheduler mainScheduler;
     @Inject
@@ -119,12 +149,48 @@ public class MapFragment extends BaseFragment implements OnMapReadyCallback, Loc
         super.onResume();
         getActivity().setTitle(R.string.menu_map);
 
-        locationSubscription = locationService.getLocation().subscribe(new Action1<Location>() {
-            @Override
-            public void call(Location location) {
-                onLocationChanged(location);
-            }
-        });
+        locationSubscription = locationService.getLocation(LocationPolicy.COARSE)
+                .observeOn(mainScheduler)
+                .subscribe(new Action1<Location>() {
+                    @Override
+                    public void call(Location location) {
+                        onLocationChanged(location);
+                    }
+                });
+
+        // load missing tiles once the camera is idle, a newer camera position cancels pending requests
+        placesSubscription = cameraPositions
+                .debounce(CAMERA_IDLE_TIMEOUT, TimeUnit.MILLISECONDS, mainScheduler)
+                .doOnNext(new Action1<CameraPosition>() {
+                    @Override
+                    public void call(CameraPosition cameraPosition) {
+                        displayIndexedPlaces();
+                    }
+                })
+                .map(new Func1<CameraPosition, List<Tile>>() {
+                    @Override
+                    public List<Tile> call(CameraPosition cameraPosition) {
+                        return getMissingTiles();
+                    }
+                })
+                .filter(new Func1<List<Tile>, Boolean>() {
+                    @Override
+                    public Boolean call(List<Tile> missingTiles) {
+                        return !missingTiles.isEmpty();
+                    }
+                })
+                .switchMap(new Func1<List<Tile>, Observable<CachedPlaceService.TilePlaces>>() {
+                    @Override
+                    public Observable<CachedPlaceService.TilePlaces> call(List<Tile> missingTiles) {
+                        return loadTiles(missingTiles);
+                    }
+                })
+                .subscribe(new Action1<CachedPlaceService.TilePlaces>() {
+                    @Override
+                    public void call(CachedPlaceService.TilePlaces tilePlaces) {
+                        onTileLoaded(tilePlaces);
+                    }
+                });
     }
 
     @Override
@@ -132,6 +198,7 @@ public class MapFragment extends BaseFragment implements OnMapReadyCallback, Loc
         super.onPause();
 
         locationSubscription.unsubscribe();
+        placesSubscription.unsubscribe();
     }
 
     @Override
@@ -191,49 +258,92 @@ public class MapFragment extends BaseFragment implements OnMapReadyCallback, Loc
         view.setPanelState(SlidingUpPanelLayout.PanelState.HIDDEN);
     }
 
-    private long getRadius(LatLngBounds bounds) {
-        float[] results = new float[3];
-        Location.distanceBetween(bounds.northeast.latitude, bounds.northeast.longitude, bounds.southwest
-                .latitude, bounds.southwest.longitude, results);
-
-        return Math.max((long) Math.ceil(results[0] / 1_000d), 1L);
-
+    private int getTileZoom(float cameraZoom, LatLngBounds bounds) {
+        int zoom = Math.max(MIN_TILE_ZOOM, Math.min(MAX_TILE_ZOOM, (int) cameraZoom - 1));
+        while (zoom > MIN_TILE_ZOOM && Tile.Companion.covering(bounds, zoom).size() > MAX_VISIBLE_TILES) {
+            zoom--;
+        }
+        return zoom;
     }
 
-    private void displayPlaces() {
-        LatLng target = map.getCameraPosition().target;
+    /**
+     * Returns visible tiles which are not loaded completely yet, including tiles whose request was cancelled
+     */
+    private List<Tile> getMissingTiles() {
         LatLngBounds bounds = map.getProjection().getVisibleRegion().latLngBounds;
-        long radius = getRadius(bounds);
-        displayPlaces(target, radius);
+        int zoom = getTileZoom(map.getCameraPosition().zoom, bounds);
+
+        List<Tile> missingTiles = new ArrayList<>();
+        for (Tile tile : Tile.Companion.covering(bounds, zoom)) {
+            if (!Boolean.TRUE.equals(tiles.get(tile))) {
+                missingTiles.add(tile);
+            }
+        }
+        return missingTiles;
     }
 
-    private void displayPlaces(final LatLng target, final long radius) {
-        Log.i(TAG, "Request places at " + target + " with radius " + radius);
+    private Observable<CachedPlaceService.TilePlaces> loadTiles(final List<Tile> missingTiles) {
+        Log.i(TAG, "Request places of " + missingTiles.size() + " tiles");
 
-        getProgressbar().setIndeterminate(true);
+        Action0 hideProgress = new Action0() {
+            @Override
+            public void call() {
+                getProgressbar().setIndeterminate(false);
+            }
+        };
 
-        placeService.getPlaces(target, radius)
-                .subscribeOn(Schedulers.io())
+        return cachedPlaceService.getPlaces(missingTiles)
+                .subscribeOn(ioScheduler)
+                .unsubscribeOn(ioScheduler)
                 .observeOn(mainScheduler)
-                .unsubscribeOn(Schedulers.io())
-                .subscribe(new Subscriber<List<Place>>() {
+                .doOnSubscribe(new Action0() {
                     @Override
-                    public void onCompleted() {
+                    public void call() {
+                        getProgressbar().setIndeterminate(true);
                     }
-
+                })
+                .doOnTerminate(hideProgress)
+                .doOnUnsubscribe(hideProgress)
+                .doOnError(new Action1<Throwable>() {
                     @Override
-                    public void onError(Throwable e) {
-                        Timber.e(e, "Could not retrieve places for %s with radius %d", target.toString(), radius);
+                    public void call(Throwable e) {
+                        Timber.e(e, "Could not retrieve places of tiles %s", missingTiles);
                         Toast.makeText(getActivity(), e.getLocalizedMessage(), Toast.LENGTH_SHORT).show();
                     }
+                })
+                .onErrorResumeNext(Observable.<CachedPlaceService.TilePlaces>empty());
+    }
 
-                    @Override
-                    public void onNext(List<Place> places) {
-                        Log.i(TAG, "Received " + places.size() + " places");
-                        placeClusterManager.setPlaces(places);
-                        getProgressbar().setIndeterminate(false);
-                    }
-                });
+    private void onTileLoaded(CachedPlaceService.TilePlaces tilePlaces) {
+        if (tilePlaces.getComplete()) {
+            Log.i(TAG, "Loaded tile " + tilePlaces.getTile());
+            tiles.put(tilePlaces.getTile(), true);
+            return;
+        }
+
+        // still loading until complete, so a camera change cancelling the stream requests the tile again
+        Log.i(TAG, "Received " + tilePlaces.getPlaces().size() + " places of tile " + tilePlaces.getTile());
+        tiles.put(tilePlaces.getTile(), false);
+        displayIndexedPlaces();
+    }
+
+    /**
+     * Displays known places around the visible region without waiting for the network
+     */
+    private void displayIndexedPlaces() {
+        LatLngBounds bounds = map.getProjection().getVisibleRegion().latLngBounds;
+        double latitudePadding = (bounds.northeast.latitude - bounds.southwest.latitude) / 2;
+        double longitudePadding = Math.min((bounds.northeast.longitude - bounds.southwest.longitude + 360) % 360 / 2, 90);
+
+        placeClusterManager.setPlaces(placeIndex.query(
+                Math.max(bounds.southwest.latitude - latitudePadding, -90),
+                wrapLongitude(bounds.southwest.longitude - longitudePadding),
+                Math.min(bounds.northeast.latitude + latitudePadding, 90),
+                wrapLongitude(bounds.northeast.longitude + longitudePadding)));
+    }
+
+    private static double wrapLongitude(double longitude) {
+        return longitude > 180 ? longitude - 360 : longitude < -180 ? longitude + 360 : longitude;
     }
 
     public void setPlace(final Place place) {
@@ -276,6 +386,6 @@ public class MapFragment extends BaseFragment implements OnMapReadyCallback, Loc
 
     @Override
     public void onCameraChange(CameraPosition cameraPosition) {
-        displayPlaces();
+        cameraPositions.onNext(cameraPosition);
     }
 }
@@ -31,9 +31,11 @@ import android.graphics.Canvas;
 import android.graphics.Color;
 import android.graphics.Paint;
 import android.graphics.Rect;
+import android.util.LruCache;
 
 import com.google.android.gms.maps.CameraUpdateFactory;
 import com.google.android.gms.maps.GoogleMap;
+import com.google.android.gms.maps.model.BitmapDescriptor;
 import com.google.android.gms.maps.model.BitmapDescriptorFactory;
 import com.google.android.gms.maps.model.CameraPosition;
 import com.google.android.gms.maps.model.LatLng;
@@ -47,12 +49,18 @@ import org.bbqapp.android.R;
 import org.bbqapp.android.api.model.Place;
 
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 
 /**
  *
  */
 class PlaceClusterManager {
+    private static final int[] CLUSTER_BUCKETS = {10, 20, 50, 100, 200, 500, 1000};
+    private static final int MAX_CLUSTER_ICONS = 16;
+
     interface OnPlaceSelectionListener {
         /**
          * @param place selected place or {@code null} if place was unselected
@@ -68,11 +76,16 @@ class PlaceClusterManager {
 
     private PlaceManager manager;
 
+    // displayed items by place id
+    private final Map<String, PlaceItem> items = new HashMap<>();
+
     private GoogleMap map;
 
     public void init(GoogleMap map) {
         this.map = map;
+        items.clear();
         manager = new PlaceManager(context, map);
+        manager.setAlgorithm(new GridClusterAlgorithm<PlaceItem>());
         manager.setRenderer(new PlaceRenderer(context, map, manager));
         manager.setOnClusterClickListener(new ClusterItemClickListener());
         map.setOnCameraChangeListener(manager);
@@ -94,17 +107,46 @@ class PlaceClusterManager {
         manager.cameraChangeListener = cameraChangeListener;
     }
 
+    /**
+     * Updates displayed places by their ids. Only new and changed places are added and only departed places are
+     * removed, so unchanged markers are kept and the items are clustered once.
+     *
+     * @param places places to display
+     */
     public void setPlaces(List<Place> places) {
-        ArrayList<PlaceItem> markers = new ArrayList<>(places.size());
-        manager.clearItems();
-        manager.cluster();
-
+        Map<String, Place> nextPlaces = new HashMap<>(places.size());
         for (Place place : places) {
-            markers.add(new PlaceItem(place));
+            nextPlaces.put(place.getId(), place);
+        }
+
+        boolean changed = false;
+        Iterator<Map.Entry<String, PlaceItem>> iterator = items.entrySet().iterator();
+        while (iterator.hasNext()) {
+            PlaceItem item = iterator.next().getValue();
+            if (!item.getPlace().equals(nextPlaces.get(item.getPlace().getId()))) {
+                manager.removeItem(item);
+                iterator.remove();
+                changed = true;
+            }
+        }
+
+        List<PlaceItem> addedItems = new ArrayList<>();
+        for (Place place : nextPlaces.values()) {
+            if (!items.containsKey(place.getId())) {
+                PlaceItem item = new PlaceItem(place);
+                items.put(place.getId(), item);
+                addedItems.add(item);
+            }
         }
 
-        manager.addItems(markers);
-        manager.cluster();
+        if (!addedItems.isEmpty()) {
+            manager.addItems(addedItems);
+            changed = true;
+        }
+
+        if (changed) {
+            manager.cluster();
+        }
     }
 
     private class PlaceManager extends ClusterManager<PlaceItem> {
@@ -127,56 +169,97 @@ class PlaceClusterManager {
 
     private class PlaceRenderer extends DefaultClusterRenderer<PlaceItem> {
 
+        private final LruCache<String, BitmapDescriptor> clusterIcons = new LruCache<>(MAX_CLUSTER_ICONS);
+        private final Paint paint;
+        private final Rect bounds = new Rect();
+        private Bitmap markerBitmap;
+        private BitmapDescriptor placeIcon;
+
         public PlaceRenderer(Context context, GoogleMap map, ClusterManager<PlaceItem> clusterManager) {
             super(context, map, clusterManager);
+
+            float scale = context.getResources().getDisplayMetrics().density;
+            paint = new Paint(Paint.ANTI_ALIAS_FLAG);
+            paint.setColor(Color.rgb(61, 61, 61));
+            paint.setTextSize((int) (20 * scale));
+            paint.setShadowLayer(1f, 0f, 1f, Color.WHITE);
         }
 
         @Override
         protected void onBeforeClusterItemRendered(PlaceItem item, MarkerOptions markerOptions) {
             super.onBeforeClusterItemRendered(item, markerOptions);
-            Bitmap bitmap = BitmapFactory.decodeResource(context.getResources(), R.drawable.grill_marker);
-            markerOptions.icon(BitmapDescriptorFactory.fromBitmap(bitmap));
+            if (placeIcon == null) {
+                placeIcon = BitmapDescriptorFactory.fromBitmap(getMarkerBitmap());
+            }
+            markerOptions.icon(placeIcon);
         }
 
         @Override
         protected void onBeforeClusterRendered(Cluster<PlaceItem> cluster, MarkerOptions markerOptions) {
-            String count = String.valueOf(cluster.getSize());
+            // the default cluster icon is not used, so super is not called to avoid rendering it
+            String label = getClusterLabel(cluster.getSize());
+
+            BitmapDescriptor icon = clusterIcons.get(label);
+            if (icon == null) {
+                icon = BitmapDescriptorFactory.fromBitmap(createClusterBitmap(label));
+                clusterIcons.put(label, icon);
+            }
+            markerOptions.icon(icon);
+        }
 
-            super.onBeforeClusterRendered(cluster, markerOptions);
-            Bitmap bitmap = BitmapFactory.decodeResource(context.getResources(), R.drawable.grill_marker);
+        private Bitmap getMarkerBitmap() {
+            if (markerBitmap == null) {
+                markerBitmap = BitmapFactory.decodeResource(context.getResources(), R.drawable.grill_marker);
+            }
+            return markerBitmap;
+        }
+
+        private Bitmap createClusterBitmap(String label) {
+            Bitmap bitmap = getMarkerBitmap();
             Bitmap.Config bitmapConfig = bitmap.getConfig();
             if (bitmapConfig == null) {
                 bitmapConfig = android.graphics.Bitmap.Config.ARGB_8888;
             }
             bitmap = bitmap.copy(bitmapConfig, true);
             Canvas canvas = new Canvas(bitmap);
-            Paint paint = new Paint(Paint.ANTI_ALIAS_FLAG);
-            float scale = context.getResources().getDisplayMetrics().density;
-            paint.setColor(Color.rgb(61, 61, 61));
-            paint.setTextSize((int) (20 * scale));
-            paint.setShadowLayer(1f, 0f, 1f, Color.WHITE);
 
-            Rect bounds = new Rect();
-            paint.getTextBounds(count, 0, count.length(), bounds);
+            paint.getTextBounds(label, 0, label.length(), bounds);
             int x = (bitmap.getWidth() - bounds.width()) / 2;
             int y = (bitmap.getHeight() + bounds.height()) / 2;
 
-            canvas.drawText(count, x, y, paint);
+            canvas.drawText(label, x, y, paint);
+
+            return bitmap;
+        }
 
-            markerOptions.icon(BitmapDescriptorFactory.fromBitmap(bitmap));
+        /**
+         * Returns the exact size for small clusters, otherwise the largest bucket the size reaches, e.g. {@code 50+}
+         *
+         * @param size cluster size
+         * @return label to display and to cache the icon with
+         */
+        private String getClusterLabel(int size) {
+            for (int i = CLUSTER_BUCKETS.length - 1; i >= 0; i--) {
+                if (size >= CLUSTER_BUCKETS[i]) {
+                    return CLUSTER_BUCKETS[i] + "+";
+                }
+            }
+            return String.valueOf(size);
         }
     }
 
     private static class PlaceItem implements ClusterItem {
-        private Place place;
+        private final Place place;
+        private final LatLng position;
 
         public PlaceItem(Place place) {
             this.place = place;
+            this.position = new LatLng(place.getLocation().getLat(), place.getLocation().getLon());
         }
 
         @Override
         public LatLng getPosition() {
-            return new LatLng(place.getLocation().getCoordinates().get(1), place.getLocation().getCoordinates().get(0));
+            return position;
         }
 
         public Place getPlace() {
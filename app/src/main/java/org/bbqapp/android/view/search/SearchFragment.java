@@ -0,0 +1,145 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 bbqapp
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package org.bbqapp.android.view.search;
+
+import android.location.Location;
+import android.os.Bundle;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.EditText;
+import android.widget.ListView;
+
+import com.jakewharton.rxbinding.widget.RxTextView;
+
+import org.bbqapp.android.R;
+import org.bbqapp.android.api.cache.PlaceSearchIndex;
+import org.bbqapp.android.api.model.Place;
+import org.bbqapp.android.service.LocationService;
+import org.bbqapp.android.view.BaseFragment;
+import org.bbqapp.android.view.list.PlaceListAdapter;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+
+import butterknife.Bind;
+import rx.Observable;
+import rx.Scheduler;
+import rx.Subscription;
+import rx.functions.Action1;
+import rx.functions.Func1;
+
+/**
+ * Fragment to search known places by tags, address and comments without network
+ */
+public class SearchFragment extends BaseFragment {
+    private static final int MAX_RESULTS = 50;
+
+    @Bind(R.id.search_query) EditText queryText;
+    @Bind(R.id.search_results) ListView resultList;
+    private PlaceListAdapter resultAdapter;
+    private Subscription querySubscription;
+    private Subscription locationSubscription;
+
+    @Inject
+    LayoutInflater layoutInflater;
+
+    @Inject
+    LocationService locationService;
+
+    @Inject
+    PlaceSearchIndex placeSearchIndex;
+    @Inject
+    @Named("main")
+    Scheduler scheduler;
+    @Inject
+    @Named("io")
+    Scheduler ioScheduler;
+    @Inject
+    @Named("computation")
+    Scheduler computationScheduler;
+
+    @Override
+    public View onCreateView(LayoutInflater inflater, ViewGroup container, Bundle savedInstanceState) {
+        return inflater.inflate(R.layout.view_search, container, false);
+    }
+
+    @Override
+    public void onResume() {
+        super.onResume();
+
+        // results keep their rank, the location only provides their distances
+        resultAdapter = new PlaceListAdapter(layoutInflater, computationScheduler, scheduler, false);
+        resultAdapter.attachTo(resultList);
+
+        getActivity().setTitle(R.string.menu_search);
+        querySubscription = RxTextView.textChanges(queryText)
+                .switchMap(new Func1<CharSequence, Observable<List<Place>>>() {
+                    @Override
+                    public Observable<List<Place>> call(CharSequence query) {
+                        return search(query.toString());
+                    }
+                })
+                .observeOn(scheduler)
+                .subscribe(new Action1<List<Place>>() {
+                    @Override
+                    public void call(List<Place> places) {
+                        resultAdapter.setPlaces(places);
+                    }
+                });
+        locationSubscription = locationService.getSignificantLocation()
+                .observeOn(scheduler)
+                .subscribe(new Action1<Location>() {
+                    @Override
+                    public void call(Location location) {
+                        resultAdapter.setLocation(location);
+                    }
+                });
+    }
+
+    @Override
+    public void onPause() {
+        super.onPause();
+        querySubscription.unsubscribe();
+        locationSubscription.unsubscribe();
+        resultAdapter.destroy();
+    }
+
+    /**
+     * Searches on the io scheduler as the first search loads the index from disk
+     */
+    private Observable<List<Place>> search(final String query) {
+        return Observable.fromCallable(new Callable<List<Place>>() {
+            @Override
+            public List<Place> call() {
+                return placeSearchIndex.search(query, MAX_RESULTS);
+            }
+        }).subscribeOn(ioScheduler);
+    }
+}
@@ -39,16 +39,30 @@ import com.squareup.picasso.Picasso
 import dagger.ObjectGraph
 import okhttp3.OkHttpClient
 import org.bbqapp.android.api.PicassoPictureRequestTransformer
+import org.bbqapp.android.api.cache.CachedPlaceService
+import org.bbqapp.android.api.cache.MemoizingPlaceService
+import org.bbqapp.android.api.cache.PlaceCache
+import org.bbqapp.android.api.cache.PlaceIndex
+import org.bbqapp.android.api.cache.PlaceSearchIndex
 import org.bbqapp.android.api.converter.IdConverterFactory
+import org.bbqapp.android.api.converter.JsonArrayDecoder
 import org.bbqapp.android.api.converter.LatLngConverterFactory
 import org.bbqapp.android.api.converter.LocationConverterFactory
 import org.bbqapp.android.api.converter.PictureConverterFactory
+import org.bbqapp.android.api.model.Place
 import org.bbqapp.android.api.service.PlaceService
+import org.bbqapp.android.service.AddressIndex
+import org.bbqapp.android.service.Gazetteer
+import org.bbqapp.android.service.GeocodeCache
+import org.bbqapp.android.service.GeocodeService
+import org.bbqapp.android.service.LastLocationStore
 import org.bbqapp.android.service.LocationService
 import retrofit2.Retrofit
 import retrofit2.adapter.rxjava.RxJavaCallAdapterFactory
 import retrofit2.converter.jackson.JacksonConverterFactory
 import timber.log.Timber
+import java.io.File
+import java.io.IOException
 
 open class App : Application(), KodeinApplication, Injector {
 
@@ -64,7 +78,17 @@ open class App : Application(), KodeinApplication, Injector {
 
         bind<LocationManager>() with singleton { getSystemService(Context.LOCATION_SERVICE) as LocationManager }
 
-        bind<LocationService>() with singleton { LocationService(instance()) }
+        bind<LastLocationStore>() with singleton {
+            LastLocationStore(getSharedPreferences("location", Context.MODE_PRIVATE))
+        }
+
+        bind<LocationService>() with singleton { LocationService(instance(), instance()) }
+
+        bind<GeocodeService>() with singleton {
+            GeocodeService(this@App, GeocodeCache(File(cacheDir, "geocode"), instance()), openGazetteer())
+        }
+
+        bind<AddressIndex>() with singleton { AddressIndex(File(filesDir, "addresses.json"), instance()) }
 
         bind<OkHttpClient>() with singleton { OkHttpClient.Builder().build() }
 
@@ -83,7 +107,19 @@ open class App : Application(), KodeinApplication, Injector {
                     build();
         }
 
-        bind<PlaceService>() with singleton { instance<Retrofit>().create(PlaceService::class.java) }
+        bind<PlaceService>() with singleton {
+            MemoizingPlaceService(instance<Retrofit>().create(PlaceService::class.java))
+        }
+
+        bind<PlaceCache>() with singleton { PlaceCache(File(cacheDir, "places"), instance()) }
+
+        bind<PlaceIndex>() with singleton { PlaceIndex() }
+
+        bind<PlaceSearchIndex>() with singleton { PlaceSearchIndex(File(filesDir, "search.jsonl"), instance()) }
+
+        bind<CachedPlaceService>() with singleton {
+            CachedPlaceService(instance(), instance(), instance(), instance(), JsonArrayDecoder(instance(), Place::class.java))
+        }
 
         bind<Picasso>() with singleton {
             Picasso.Builder(this@App).
@@ -105,10 +141,32 @@ open class App : Application(), KodeinApplication, Injector {
         mObjectGraph = ObjectGraph.create(AppModule(this));
     }
 
+    /**
+     * Maps the gazetteer asset in place, null if the apk does not contain one
+     */
+    private fun openGazetteer(): Gazetteer? {
+        try {
+            val asset = assets.openFd(GAZETTEER_ASSET)
+            try {
+                // the mapping stays valid after the stream is closed
+                return asset.createInputStream().use { Gazetteer.open(it.channel, asset.startOffset, asset.length) }
+            } finally {
+                asset.close()
+            }
+        } catch (e: IOException) {
+            Timber.i(e, "No offline gazetteer available")
+            return null
+        }
+    }
+
     override fun inject(o: Any?) {
         mObjectGraph.inject(o)
     }
     override fun getObjectGraph(): ObjectGraph? {
         return mObjectGraph
     }
+
+    companion object {
+        private const val GAZETTEER_ASSET = "gazetteer.gaz"
+    }
 }
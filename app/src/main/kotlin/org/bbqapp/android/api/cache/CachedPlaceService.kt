@@ -0,0 +1,179 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 bbqapp
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.bbqapp.android.api.cache
+
+import android.location.Location
+import com.google.android.gms.maps.model.LatLng
+import org.bbqapp.android.api.converter.JsonArrayDecoder
+import org.bbqapp.android.api.model.Place
+import org.bbqapp.android.api.service.PlaceService
+import org.bbqapp.android.extension.getLatLng
+import org.bbqapp.android.extension.getLatitude
+import org.bbqapp.android.extension.getLongitude
+import rx.Observable
+import rx.functions.Action0
+import timber.log.Timber
+import java.util.*
+
+/**
+ * Serves places from [PlaceCache] and revalidates stale entries against [PlaceService].
+ *
+ * Places are cached per [Tile], pages of places nearest to a location are requested directly. Cached places are
+ * emitted immediately; if they are older than [maxAge] the remote result is emitted afterwards when it differs.
+ * Without cached places the remote result is emitted progressively while [decoder] parses the response.
+ * Concurrent requests of the same [Tile] share one in-flight request.
+ * All served places are added to [index] and [searchIndex].
+ */
+class CachedPlaceService(private val placeService: PlaceService,
+                         private val cache: PlaceCache,
+                         private val index: PlaceIndex,
+                         private val searchIndex: PlaceSearchIndex,
+                         private val decoder: JsonArrayDecoder<Place>,
+                         private val maxAge: Long = DEFAULT_MAX_AGE) {
+
+    /**
+     * Places of [tile] received so far, or with [complete] set and no places once all places of [tile] were received
+     */
+    data class TilePlaces(val tile: Tile, val places: List<Place>, val complete: Boolean = false)
+
+    private val inFlight = HashMap<Tile, Observable<List<Place>>>()
+
+    /**
+     * Returns one page of places nearest to location first, pages are not cached but added to the indexes
+     */
+    fun getPlaces(location: Location, radius: Long, offset: Int, limit: Int): Observable<List<Place>> =
+            placeService.getPlaces(location.getLatLng(), radius, offset, limit).doOnNext { addToIndexes(it) }
+
+    /**
+     * Returns places of all given tiles, each tile is emitted as soon as it is available and followed by a complete
+     * [TilePlaces] once its request has finished
+     */
+    fun getPlaces(tiles: List<Tile>): Observable<TilePlaces> = Observable.from(tiles).flatMap { tile ->
+        getPlaces(tile).map { TilePlaces(tile, it) }.concatWith(Observable.just(TilePlaces(tile, emptyList(), true)))
+    }
+
+    /**
+     * Returns places located within the tile
+     */
+    fun getPlaces(tile: Tile): Observable<List<Place>> = synchronized(inFlight) {
+        inFlight[tile] ?: request(tile).apply { inFlight.put(tile, this) }
+    }
+
+    private fun request(tile: Tile): Observable<List<Place>> {
+        var request: Observable<List<Place>>? = null
+        val release = Action0 {
+            synchronized(inFlight) {
+                if (inFlight[tile] === request) {
+                    inFlight.remove(tile)
+                }
+            }
+        }
+
+        request = getPlaces(tile.key, tile.center, Math.ceil(tile.radius).toLong()) {
+            tile.contains(it.location.getLatitude(), it.location.getLongitude())
+        }.doOnTerminate(release).doOnUnsubscribe(release).replay().refCount()
+        return request
+    }
+
+    private fun getPlaces(key: String, location: LatLng, radius: Long,
+                          filter: ((Place) -> Boolean)? = null): Observable<List<Place>> = Observable.defer {
+        val cached = cache.get(key)
+
+        if (cached == null) {
+            streamPlaces(key, location, radius, filter)
+        } else {
+            val cachedPlaces = Observable.just(cached.places).doOnNext { addToIndexes(it) }
+            if (!cached.isOlderThan(maxAge)) {
+                cachedPlaces
+            } else {
+                cachedPlaces.concatWith(streamPlaces(key, location, radius, filter)
+                        .last()
+                        .filter { it != cached.places }
+                        .doOnError { Timber.w(it, "Could not revalidate cached places of $key") }
+                        .onErrorResumeNext(Observable.empty<List<Place>>()))
+            }
+        }
+    }
+
+    private fun addToIndexes(places: List<Place>) {
+        index.add(places)
+        searchIndex.add(places)
+    }
+
+    /**
+     * Requests places and emits all places received so far after every decoded batch. Only new batches are indexed,
+     * the complete result is cached.
+     */
+    private fun streamPlaces(key: String, location: LatLng, radius: Long,
+                             filter: ((Place) -> Boolean)?): Observable<List<Place>> = Observable.defer {
+        val batches = ArrayList<List<Place>>()
+
+        placeService.getPlacesStream(location, radius)
+                .concatMap { decoder.decode(it) }
+                .map<List<Place>> { batch ->
+                    val accepted = if (filter != null) batch.filter(filter) else batch
+                    addToIndexes(accepted)
+                    batches.add(accepted)
+                    Received(batches)
+                }
+                .doOnCompleted { cache.put(key, Received(batches)) }
+    }
+
+    companion object {
+        const val DEFAULT_MAX_AGE = 60L * 1000
+    }
+}
+
+/**
+ * Read-only list of the batches received so far, batches appended later are not part of it
+ */
+private class Received(batches: List<List<Place>>) : AbstractList<Place>(), RandomAccess {
+    private val batches = batches.toTypedArray()
+    private val offsets = IntArray(this.batches.size + 1)
+
+    init {
+        for (i in this.batches.indices) {
+            offsets[i + 1] = offsets[i] + this.batches[i].size
+        }
+    }
+
+    override val size: Int
+        get() = offsets[batches.size]
+
+    override fun get(index: Int): Place {
+        if (index < 0 || index >= size) {
+            throw IndexOutOfBoundsException("Index $index of $size")
+        }
+
+        // last batch starting at or before index
+        var low = 0
+        var high = batches.size - 1
+        while (low < high) {
+            val mid = (low + high + 1).ushr(1)
+            if (offsets[mid] <= index) low = mid else high = mid - 1
+        }
+        return batches[low][index - offsets[low]]
+    }
+}
@@ -0,0 +1,139 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 bbqapp
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.bbqapp.android.api.cache
+
+import java.io.File
+import java.io.IOException
+import java.net.URLDecoder
+import java.net.URLEncoder
+import java.util.*
+
+/**
+ * Files in [directory], one per key, evicted least recently used first once there are more than [maxEntries] files or
+ * their total size exceeds [maxSize] bytes.
+ *
+ * Files are named by their URL encoded key and written to a temporary file first, so a file is never read half
+ * written. The access order is kept in the file modification times and restored from them when the index is loaded
+ * lazily. Not thread safe, callers synchronize.
+ */
+class DiskLru(private val directory: File,
+              private val maxEntries: Int = Int.MAX_VALUE,
+              private val maxSize: Long = Long.MAX_VALUE,
+              private val clock: () -> Long = { System.currentTimeMillis() }) {
+
+    // key to file size in access order
+    private var index: LinkedHashMap<String, Long>? = null
+
+    var size = 0L
+        private set
+
+    val keys: List<String>
+        get() = index().keys.toList()
+
+    /**
+     * File of [key] marked as most recently used, null if there is none
+     */
+    fun get(key: String): File? {
+        if (index()[key] == null) {
+            return null
+        }
+
+        val file = file(key)
+        if (!file.exists()) {
+            remove(key)
+            return null
+        }
+        file.setLastModified(clock())
+        return file
+    }
+
+    /**
+     * Lets [write] fill a temporary file which then replaces the file of [key]
+     *
+     * @return keys evicted to make room
+     */
+    fun put(key: String, write: (File) -> Unit): List<String> {
+        val file = file(key)
+        val tmp = File(directory, file.name + TMP_SUFFIX)
+        try {
+            directory.mkdirs()
+            write(tmp)
+            if (!tmp.renameTo(file)) {
+                throw IOException("Could not rename $tmp to $file")
+            }
+        } catch (e: IOException) {
+            tmp.delete()
+            throw e
+        }
+        file.setLastModified(clock())
+
+        val index = index()
+        index.remove(key)?.let { size -= it }
+        index.put(key, file.length())
+        size += file.length()
+        return trim()
+    }
+
+    fun remove(key: String) {
+        index().remove(key)?.let { size -= it }
+        file(key).delete()
+    }
+
+    private fun trim(): List<String> {
+        val index = index()
+        val evicted = ArrayList<String>()
+        val iterator = index.entries.iterator()
+        while ((index.size > maxEntries || size > maxSize) && iterator.hasNext()) {
+            val eldest = iterator.next()
+            iterator.remove()
+            size -= eldest.value
+            file(eldest.key).delete()
+            evicted.add(eldest.key)
+        }
+        return evicted
+    }
+
+    private fun index(): LinkedHashMap<String, Long> {
+        index?.let { return it }
+
+        val keys = LinkedHashMap<String, Long>(16, 0.75f, true)
+        directory.listFiles { file -> file.isFile && file.name.endsWith(SUFFIX) }
+                ?.sortedBy { it.lastModified() }
+                ?.forEach {
+                    keys.put(URLDecoder.decode(it.name.removeSuffix(SUFFIX), CHARSET), it.length())
+                    size += it.length()
+                }
+        index = keys
+        return keys
+    }
+
+    private fun file(key: String) = File(directory, URLEncoder.encode(key, CHARSET) + SUFFIX)
+
+    companion object {
+        private const val SUFFIX = ".json"
+        private const val TMP_SUFFIX = ".tmp"
+        private const val CHARSET = "UTF-8"
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 bbqapp
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.bbqapp.android.api.cache
+
+import rx.Observable
+import rx.functions.Action0
+import java.util.*
+
+/**
+ * Shares one in-flight request between identical keys and memoizes its result for [ttl] milliseconds.
+ *
+ * Errors are passed to all subscribers of the in-flight request but never memoized. At most [maxSize] results are
+ * kept, the least recently used result is evicted first.
+ */
+class Memoizer<K, V>(private val ttl: Long,
+                     private val maxSize: Int = DEFAULT_MAX_SIZE,
+                     private val clock: () -> Long = { System.currentTimeMillis() }) {
+
+    private data class Value<V>(val time: Long, val value: V)
+
+    private val values = object : LinkedHashMap<K, Value<V>>(16, 0.75f, true) {
+        override fun removeEldestEntry(eldest: MutableMap.MutableEntry<K, Value<V>>?) = size > maxSize
+    }
+
+    private val inFlight = HashMap<K, Observable<V>>()
+
+    /**
+     * Returns the memoized value of [key], the in-flight request of [key] or a new shared [request]
+     */
+    fun get(key: K, request: () -> Observable<V>): Observable<V> = Observable.defer {
+        synchronized(this) {
+            val value = values[key]
+            if (value != null && clock() - value.time < ttl) {
+                Observable.just(value.value)
+            } else {
+                inFlight[key] ?: share(key, request()).apply { inFlight.put(key, this) }
+            }
+        }
+    }
+
+    @Synchronized
+    fun invalidate(key: K) {
+        values.remove(key)
+    }
+
+    @Synchronized
+    fun invalidate() {
+        values.clear()
+    }
+
+    private fun share(key: K, request: Observable<V>): Observable<V> {
+        var shared: Observable<V>? = null
+        val release = Action0 {
+            synchronized(this) {
+                if (inFlight[key] === shared) {
+                    inFlight.remove(key)
+                }
+            }
+        }
+
+        shared = request
+                .doOnNext { synchronized(this) { values.put(key, Value(clock(), it)) } }
+                .doOnTerminate(release)
+                .doOnUnsubscribe(release)
+                .replay()
+                .refCount()
+        return shared
+    }
+
+    companion object {
+        const val DEFAULT_MAX_SIZE = 64
+    }
+}
@@ -0,0 +1,84 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 bbqapp
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.bbqapp.android.api.cache
+
+import android.location.Location
+import com.google.android.gms.maps.model.LatLng
+import org.bbqapp.android.api.model.*
+import org.bbqapp.android.api.service.PlaceService
+import rx.Observable
+
+/**
+ * [PlaceService] which coalesces identical concurrent requests and memoizes their results for a time to live per
+ * endpoint. Posting a place or a picture invalidates the affected results. Streams and pictures are not memoized.
+ */
+class MemoizingPlaceService(private val delegate: PlaceService,
+                            placeTtl: Long = DEFAULT_PLACE_TTL,
+                            placesTtl: Long = DEFAULT_PLACES_TTL,
+                            picturesTtl: Long = DEFAULT_PICTURES_TTL) : PlaceService by delegate {
+
+    private val place = Memoizer<String, Place>(placeTtl)
+    private val places = Memoizer<String, List<Place>>(placesTtl)
+    private val pictures = Memoizer<String, List<PictureInfo>>(picturesTtl)
+
+    override fun getPlace(placeId: String) = place.get(placeId) { delegate.getPlace(placeId) }
+
+    override fun getPlaces(location: String) = places.get(location) { delegate.getPlaces(location) }
+
+    override fun getPlaces(location: String, radius: Long) =
+            places.get("$location@$radius") { delegate.getPlaces(location, radius) }
+
+    override fun getPlaces(location: LatLng, radius: Long) =
+            places.get("${location.longitude},${location.latitude}@$radius") { delegate.getPlaces(location, radius) }
+
+    override fun getPlaces(location: LatLng, radius: Long, offset: Int, limit: Int) =
+            places.get("${location.longitude},${location.latitude}@$radius[$offset+$limit]") {
+                delegate.getPlaces(location, radius, offset, limit)
+            }
+
+    override fun getPlaces(location: Location, radius: Long) =
+            places.get("${location.longitude},${location.latitude}@$radius") { delegate.getPlaces(location, radius) }
+
+    override fun postPlace(place: Place): Observable<Id> = delegate.postPlace(place).doOnNext { places.invalidate() }
+
+    override fun getPicturesInfo(placeId: String) = pictures.get(placeId) { delegate.getPicturesInfo(placeId) }
+
+    override fun getPicturesInfo(placeId: HasId): Observable<List<PictureInfo>> {
+        val id = placeId.id ?: return delegate.getPicturesInfo(placeId)
+        return pictures.get(id) { delegate.getPicturesInfo(placeId) }
+    }
+
+    override fun postPicture(placeId: String, picture: Picture): Observable<Id> =
+            delegate.postPicture(placeId, picture).doOnNext { pictures.invalidate(placeId) }
+
+    override fun postPicture(placeId: HasId, picture: Picture): Observable<Id> =
+            delegate.postPicture(placeId, picture).doOnNext { placeId.id?.let { pictures.invalidate(it) } }
+
+    companion object {
+        const val DEFAULT_PLACE_TTL = 5L * 60 * 1000
+        const val DEFAULT_PLACES_TTL = 60L * 1000
+        const val DEFAULT_PICTURES_TTL = 5L * 60 * 1000
+    }
+}
@@ -0,0 +1,98 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 bbqapp
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.bbqapp.android.api.cache
+
+import com.fasterxml.jackson.databind.ObjectMapper
+import com.fasterxml.jackson.module.kotlin.readValue
+import org.bbqapp.android.api.model.Place
+import timber.log.Timber
+import java.io.File
+import java.io.IOException
+import java.util.*
+
+/**
+ * Two level LRU cache of places. Recently used entries are held in memory, all entries are persisted in
+ * [directory] until the total size exceeds [maxSize] bytes.
+ */
+class PlaceCache(directory: File,
+                 private val mapper: ObjectMapper,
+                 maxSize: Long = DEFAULT_MAX_SIZE,
+                 private val maxMemoryEntries: Int = DEFAULT_MAX_MEMORY_ENTRIES) {
+
+    data class Entry(val time: Long, val places: List<Place>) {
+        fun isOlderThan(age: Long) = System.currentTimeMillis() - time > age
+    }
+
+    private val memory = object : LinkedHashMap<String, Entry>(16, 0.75f, true) {
+        override fun removeEldestEntry(eldest: MutableMap.MutableEntry<String, Entry>?) = size > maxMemoryEntries
+    }
+
+    private val disk = DiskLru(directory, maxSize = maxSize)
+
+    @Synchronized fun get(key: String): Entry? {
+        memory[key]?.let {
+            // keep the disk order in step, otherwise the disk would evict a hot entry from both levels
+            disk.get(key)
+            return it
+        }
+
+        val file = disk.get(key) ?: return null
+        try {
+            val entry = mapper.readValue<Entry>(file)
+            memory.put(key, entry)
+            return entry
+        } catch (e: IOException) {
+            Timber.w(e, "Could not read cached places of $key")
+            remove(key)
+            return null
+        }
+    }
+
+    @Synchronized fun put(key: String, places: List<Place>) {
+        val entry = Entry(System.currentTimeMillis(), places)
+        memory.put(key, entry)
+
+        try {
+            disk.put(key) { mapper.writeValue(it, entry) }.forEach { memory.remove(it) }
+        } catch (e: IOException) {
+            Timber.w(e, "Could not write cached places of $key")
+        }
+    }
+
+    @Synchronized fun remove(key: String) {
+        memory.remove(key)
+        disk.remove(key)
+    }
+
+    @Synchronized fun clear() {
+        memory.clear()
+        disk.keys.forEach { disk.remove(it) }
+    }
+
+    companion object {
+        const val DEFAULT_MAX_SIZE = 4L * 1024 * 1024
+        const val DEFAULT_MAX_MEMORY_ENTRIES = 32
+    }
+}
@@ -0,0 +1,172 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 bbqapp
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.bbqapp.android.api.cache
+
+import org.bbqapp.android.api.model.Place
+import org.bbqapp.android.extension.GeoMath
+import org.bbqapp.android.extension.getLatitude
+import org.bbqapp.android.extension.getLongitude
+import java.util.*
+
+/**
+ * In-memory quadtree of all known places which answers bounding box and nearest neighbour queries without network.
+ * Places are identified by their id, adding a known place replaces it.
+ */
+class PlaceIndex(private val nodeCapacity: Int = DEFAULT_NODE_CAPACITY) {
+
+    private inner class Node(val south: Double, val west: Double, val north: Double, val east: Double, val depth: Int) {
+        var places: MutableList<Place>? = ArrayList()
+        var children: Array<Node>? = null
+
+        fun contains(latitude: Double, longitude: Double) =
+                latitude >= south && latitude <= north && longitude >= west && longitude <= east
+
+        fun child(latitude: Double, longitude: Double): Node {
+            val children = children!!
+            val centerLatitude = (south + north) / 2
+            val centerLongitude = (west + east) / 2
+            return children[(if (latitude < centerLatitude) 0 else 2) + (if (longitude < centerLongitude) 0 else 1)]
+        }
+
+        fun add(place: Place) {
+            val places = places
+            if (places == null) {
+                child(place.location.getLatitude(), place.location.getLongitude()).add(place)
+            } else {
+                places.add(place)
+                if (places.size > nodeCapacity && depth < MAX_DEPTH) {
+                    split(places)
+                }
+            }
+        }
+
+        fun remove(place: Place): Boolean {
+            val places = places
+            return places?.remove(place) ?: child(place.location.getLatitude(), place.location.getLongitude()).remove(place)
+        }
+
+        private fun split(places: List<Place>) {
+            val centerLatitude = (south + north) / 2
+            val centerLongitude = (west + east) / 2
+            children = arrayOf(
+                    Node(south, west, centerLatitude, centerLongitude, depth + 1),
+                    Node(south, centerLongitude, centerLatitude, east, depth + 1),
+                    Node(centerLatitude, west, north, centerLongitude, depth + 1),
+                    Node(centerLatitude, centerLongitude, north, east, depth + 1))
+            this.places = null
+            places.forEach { add(it) }
+        }
+
+        fun query(south: Double, west: Double, north: Double, east: Double, result: MutableList<Place>) {
+            if (south > this.north || north < this.south || west > this.east || east < this.west) {
+                return
+            }
+
+            places?.forEach {
+                val latitude = it.location.getLatitude()
+                val longitude = it.location.getLongitude()
+                if (latitude >= south && latitude <= north && longitude >= west && longitude <= east) {
+                    result.add(it)
+                }
+            }
+            children?.forEach { it.query(south, west, north, east, result) }
+        }
+    }
+
+    private var root = Node(-90.0, -180.0, 90.0, 180.0, 0)
+    private val places = HashMap<String?, Place>()
+
+    val size: Int
+        @Synchronized get() = places.size
+
+    @Synchronized fun add(places: Collection<Place>) {
+        for (place in places) {
+            val known = this.places.put(place.id, place)
+            if (known == place) {
+                continue
+            }
+            known?.let { root.remove(it) }
+            if (root.contains(place.location.getLatitude(), place.location.getLongitude())) {
+                root.add(place)
+            }
+        }
+    }
+
+    @Synchronized fun clear() {
+        places.clear()
+        root = Node(-90.0, -180.0, 90.0, 180.0, 0)
+    }
+
+    /**
+     * Returns all places within the bounding box. If [west] is greater than [east] the box spans the antimeridian.
+     */
+    @Synchronized fun query(south: Double, west: Double, north: Double, east: Double): List<Place> {
+        val result = ArrayList<Place>()
+        if (west <= east) {
+            root.query(south, west, north, east, result)
+        } else {
+            root.query(south, west, north, 180.0, result)
+            root.query(south, -180.0, north, east, result)
+        }
+        return result
+    }
+
+    /**
+     * Returns up to [count] places ordered by their distance to the given position
+     */
+    @Synchronized fun nearest(latitude: Double, longitude: Double, count: Int): List<Place> {
+        // squared equirectangular distances are sufficient to rank places around one position
+        val origin = GeoMath.Origin(latitude, longitude)
+        val queue = PriorityQueue<Candidate>()
+        val result = ArrayList<Place>(Math.min(count, places.size))
+
+        queue.add(Candidate(0.0, root, null))
+        while (result.size < count && !queue.isEmpty()) {
+            val candidate = queue.poll()
+            candidate.place?.let {
+                result.add(it)
+            }
+            candidate.node?.let { node ->
+                node.places?.forEach {
+                    val distance = origin.squaredDistance(it.location.getLatitude(), it.location.getLongitude())
+                    queue.add(Candidate(distance, null, it))
+                }
+                node.children?.forEach {
+                    queue.add(Candidate(origin.squaredDistance(it.south, it.west, it.north, it.east), it, null))
+                }
+            }
+        }
+        return result
+    }
+
+    private inner class Candidate(val distance: Double, val node: Node?, val place: Place?) : Comparable<Candidate> {
+        override fun compareTo(other: Candidate) = java.lang.Double.compare(distance, other.distance)
+    }
+
+    companion object {
+        const val DEFAULT_NODE_CAPACITY = 32
+        private const val MAX_DEPTH = 20
+    }
+}
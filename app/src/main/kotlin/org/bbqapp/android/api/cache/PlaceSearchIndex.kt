@@ -0,0 +1,283 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 bbqapp
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.bbqapp.android.api.cache
+
+import com.fasterxml.jackson.databind.ObjectMapper
+import com.fasterxml.jackson.module.kotlin.readValue
+import org.bbqapp.android.api.model.Place
+import org.bbqapp.android.extension.searchWords
+import rx.Observable
+import rx.Scheduler
+import rx.schedulers.Schedulers
+import timber.log.Timber
+import java.io.File
+import java.io.FileWriter
+import java.io.IOException
+import java.util.*
+import java.util.concurrent.TimeUnit
+
+/**
+ * Full-text index of the tags, address and comments of all known places, persisted in [file].
+ *
+ * Words are indexed by their first one and two letters and by all their trigrams, so a query word matches word
+ * prefixes and, from three letters on, any part of a word. At most [maxEntries] places are kept, the place least
+ * recently added or found is evicted first.
+ *
+ * Added places are searchable immediately and appended to [file] as JSON lines in one batch [flushDelay] milliseconds
+ * later on [scheduler]. The file is compacted once most of its lines are outdated.
+ */
+class PlaceSearchIndex(private val file: File,
+                       private val mapper: ObjectMapper,
+                       private val maxEntries: Int = DEFAULT_MAX_ENTRIES,
+                       private val scheduler: Scheduler = Schedulers.io(),
+                       private val flushDelay: Long = DEFAULT_FLUSH_DELAY) {
+
+    private class Document(val place: Place) {
+        val tagWords = place.tags.orEmpty().flatMap { it.searchWords() }.distinct()
+        val textWords = (listOf(place.address?.country.orEmpty()) + place.comments.orEmpty().map { it.comment })
+                .flatMap { it.searchWords() }.distinct()
+        val grams = (tagWords + textWords).flatMap { documentGrams(it) }.toSet()
+    }
+
+    private var documents: MutableMap<String, Document>? = null
+    private val postings = HashMap<String, MutableSet<String>>()
+    private var lines = 0
+    private var pending = ArrayList<Place>()
+    private var flushScheduled = false
+    // serializes writes to file, taken before the lock of the index
+    private val fileLock = Any()
+
+    val size: Int
+        @Synchronized get() = documents().size
+
+    /**
+     * Indexes new and changed places and schedules appending them to [file]
+     */
+    @Synchronized fun add(places: List<Place>) {
+        val documents = documents()
+        val changed = places.filter { it.id != null && documents[it.id]?.place != it }.distinctBy { it.id }
+        if (changed.isEmpty()) {
+            return
+        }
+
+        changed.forEach { index(it) }
+        pending.addAll(changed)
+
+        if (!flushScheduled) {
+            flushScheduled = true
+            Observable.timer(flushDelay, TimeUnit.MILLISECONDS, scheduler).subscribe { flush() }
+        }
+    }
+
+    /**
+     * Appends places added since the last flush to [file], or rewrites it once most of its lines are outdated
+     */
+    fun flush() {
+        synchronized(fileLock) {
+            val (places, compact) = synchronized(this) {
+                flushScheduled = false
+                val documents = documents()
+                // evicted places are not written
+                val added = pending.filter { documents.containsKey(it.id) }
+                pending = ArrayList()
+                if (lines + added.size > documents.size * 2 + MIN_COMPACT_LINES) {
+                    Pair(documents.values.map { it.place }, true)
+                } else {
+                    Pair(added, false)
+                }
+            }
+
+            if (compact) {
+                if (compact(places)) {
+                    synchronized(this) { lines = places.size }
+                }
+            } else if (places.isNotEmpty() && append(places)) {
+                synchronized(this) { lines += places.size }
+            }
+        }
+    }
+
+    /**
+     * Places matching all words of [query], best matches first
+     */
+    @Synchronized fun search(query: String, limit: Int): List<Place> {
+        val queryWords = query.searchWords().distinct()
+        if (queryWords.isEmpty()) {
+            return emptyList()
+        }
+
+        val documents = documents()
+        val grams = queryWords.flatMap { queryGrams(it) }.distinct()
+                .map { postings[it] ?: return emptyList() }
+                .sortedBy { it.size }
+        var candidates: Set<String> = grams[0]
+        grams.drop(1).forEach { candidates = candidates.intersect(it) }
+
+        return candidates
+                .map { documents[it]!! }
+                .map { it to score(it, queryWords) }
+                .filter { it.second > 0 }
+                .sortedWith(compareByDescending<Pair<Document, Int>> { it.second }
+                        .thenByDescending { it.first.place.comments?.size ?: 0 })
+                .take(limit)
+                .map { it.first.place }
+    }
+
+    private fun index(place: Place) {
+        val id = place.id!!
+        val documents = documents()
+        documents.remove(id)?.let { unindex(id, it) }
+
+        val document = Document(place)
+        documents[id] = document
+        document.grams.forEach { postings.getOrPut(it) { HashSet() }.add(id) }
+
+        val iterator = documents.entries.iterator()
+        while (documents.size > maxEntries && iterator.hasNext()) {
+            val eldest = iterator.next()
+            unindex(eldest.key, eldest.value)
+            iterator.remove()
+        }
+    }
+
+    private fun unindex(id: String, document: Document) {
+        document.grams.forEach { gram ->
+            postings[gram]?.let { ids ->
+                ids.remove(id)
+                if (ids.isEmpty()) {
+                    postings.remove(gram)
+                }
+            }
+        }
+    }
+
+    private fun append(places: List<Place>): Boolean {
+        try {
+            file.parentFile?.mkdirs()
+            FileWriter(file, true).use { writer ->
+                places.forEach { writer.write(mapper.writeValueAsString(it) + "\n") }
+            }
+            return true
+        } catch (e: IOException) {
+            Timber.w(e, "Could not append places to search index")
+            return false
+        }
+    }
+
+    private fun compact(places: List<Place>): Boolean {
+        val tmp = File(file.path + ".tmp")
+        try {
+            file.parentFile?.mkdirs()
+            FileWriter(tmp).use { writer ->
+                places.forEach { writer.write(mapper.writeValueAsString(it) + "\n") }
+            }
+            if (!tmp.renameTo(file)) {
+                throw IOException("Could not rename $tmp to $file")
+            }
+            return true
+        } catch (e: IOException) {
+            Timber.w(e, "Could not compact search index")
+            tmp.delete()
+            return false
+        }
+    }
+
+    private fun documents(): MutableMap<String, Document> {
+        documents?.let { return it }
+
+        // access order, so the place least recently added or found is evicted first
+        documents = LinkedHashMap(16, 0.75f, true)
+        if (file.exists()) {
+            try {
+                file.forEachLine { line ->
+                    lines++
+                    try {
+                        index(mapper.readValue<Place>(line))
+                    } catch (e: IOException) {
+                        // a line may be truncated if the app was killed while appending
+                        Timber.w(e, "Could not read indexed place")
+                    }
+                }
+            } catch (e: IOException) {
+                Timber.w(e, "Could not read search index")
+            }
+        }
+        return documents!!
+    }
+
+    companion object {
+        const val DEFAULT_MAX_ENTRIES = 5000
+        const val DEFAULT_FLUSH_DELAY = 2000L
+        private const val MIN_COMPACT_LINES = 100
+        private const val PREFIX = "^"
+        private const val EXACT_SCORE = 3
+        private const val PREFIX_SCORE = 2
+        private const val INFIX_SCORE = 1
+        private const val TAG_WEIGHT = 2
+
+        private fun documentGrams(word: String): List<String> {
+            val grams = ArrayList<String>()
+            grams.add(PREFIX + word.substring(0, 1))
+            if (word.length >= 2) {
+                grams.add(PREFIX + word.substring(0, 2))
+            }
+            for (i in 0..word.length - 3) {
+                grams.add(word.substring(i, i + 3))
+            }
+            return grams
+        }
+
+        private fun queryGrams(word: String) =
+                if (word.length < 3) listOf(PREFIX + word) else (0..word.length - 3).map { word.substring(it, it + 3) }
+
+        private fun match(word: String, queryWord: String) =
+                if (word == queryWord) {
+                    EXACT_SCORE
+                } else if (word.startsWith(queryWord)) {
+                    PREFIX_SCORE
+                } else if (queryWord.length >= 3 && word.contains(queryWord)) {
+                    INFIX_SCORE
+                } else {
+                    0
+                }
+
+        /**
+         * Sum of the best match of each query word, tags weigh more than text. Zero if a query word does not match.
+         */
+        private fun score(document: Document, queryWords: List<String>): Int {
+            var score = 0
+            for (queryWord in queryWords) {
+                val best = Math.max(
+                        TAG_WEIGHT * (document.tagWords.map { match(it, queryWord) }.max() ?: 0),
+                        document.textWords.map { match(it, queryWord) }.max() ?: 0)
+                if (best == 0) {
+                    return 0
+                }
+                score += best
+            }
+            return score
+        }
+    }
+}
@@ -0,0 +1,109 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 bbqapp
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.bbqapp.android.api.cache
+
+import com.google.android.gms.maps.model.LatLng
+import com.google.android.gms.maps.model.LatLngBounds
+import org.bbqapp.android.extension.GeoMath
+import java.util.*
+
+/**
+ * Slippy map tile which quantizes geographic positions into stable cache keys
+ */
+data class Tile(val zoom: Int, val x: Int, val y: Int) {
+
+    val north: Double
+        get() = latitude(y, zoom)
+
+    val south: Double
+        get() = latitude(y + 1, zoom)
+
+    val west: Double
+        get() = longitude(x, zoom)
+
+    val east: Double
+        get() = longitude(x + 1, zoom)
+
+    val center: LatLng
+        get() = LatLng((north + south) / 2, (west + east) / 2)
+
+    /**
+     * Distance from tile center to its farthest corner in kilometers
+     */
+    val radius: Double
+        get() {
+            val center = center
+            return Math.max(
+                    GeoMath.haversine(center.latitude, center.longitude, north, west),
+                    GeoMath.haversine(center.latitude, center.longitude, south, west)) / 1000
+        }
+
+    val key: String
+        get() = "$zoom/$x/$y"
+
+    fun contains(latitude: Double, longitude: Double) =
+            latitude <= north && latitude > south && longitude >= west && longitude < east
+
+    companion object {
+        const val MAX_LATITUDE = 85.05112878
+
+        fun of(latitude: Double, longitude: Double, zoom: Int): Tile {
+            val count = 1 shl zoom
+            val lat = Math.toRadians(Math.max(-MAX_LATITUDE, Math.min(MAX_LATITUDE, latitude)))
+            val x = Math.floor((longitude + 180.0) / 360.0 * count).toInt()
+            val y = Math.floor((1.0 - Math.log(Math.tan(lat) + 1.0 / Math.cos(lat)) / Math.PI) / 2.0 * count).toInt()
+            return Tile(zoom, (x % count + count) % count, Math.max(0, Math.min(count - 1, y)))
+        }
+
+        fun of(position: LatLng, zoom: Int) = of(position.latitude, position.longitude, zoom)
+
+        /**
+         * Returns all tiles of the given zoom level which intersect the bounds, even when they span the antimeridian
+         */
+        fun covering(bounds: LatLngBounds, zoom: Int): List<Tile> {
+            val northWest = of(bounds.northeast.latitude, bounds.southwest.longitude, zoom)
+            val southEast = of(bounds.southwest.latitude, bounds.northeast.longitude, zoom)
+            val count = 1 shl zoom
+            val columns = if (bounds.northeast.longitude - bounds.southwest.longitude >= 360.0) {
+                count
+            } else {
+                (southEast.x - northWest.x + count) % count + 1
+            }
+
+            val tiles = ArrayList<Tile>(columns * (southEast.y - northWest.y + 1))
+            for (y in northWest.y..southEast.y) {
+                for (column in 0..columns - 1) {
+                    tiles.add(Tile(zoom, (northWest.x + column) % count, y))
+                }
+            }
+            return tiles
+        }
+
+        private fun latitude(y: Int, zoom: Int) =
+                Math.toDegrees(Math.atan(Math.sinh(Math.PI * (1.0 - 2.0 * y / (1 shl zoom)))))
+
+        private fun longitude(x: Int, zoom: Int) = x.toDouble() / (1 shl zoom) * 360.0 - 180.0
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 bbqapp
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.bbqapp.android.api.converter
+
+import com.fasterxml.jackson.core.JsonParseException
+import com.fasterxml.jackson.core.JsonParser
+import com.fasterxml.jackson.core.JsonToken
+import com.fasterxml.jackson.databind.ObjectMapper
+import okhttp3.ResponseBody
+import rx.Observable
+import rx.Observer
+import rx.observables.SyncOnSubscribe
+import timber.log.Timber
+import java.io.IOException
+import java.util.*
+
+/**
+ * Decodes a JSON array incrementally with the Jackson streaming API and emits its elements in batches while the
+ * response is still being received. The first batch holds [initialBatchSize] elements, every following batch
+ * doubles in size up to [maxBatchSize], so the first elements arrive early without flooding subscribers.
+ * At least one batch is emitted, an empty array results in one empty batch.
+ */
+class JsonArrayDecoder<T>(private val mapper: ObjectMapper,
+                          private val type: Class<T>,
+                          private val initialBatchSize: Int = DEFAULT_INITIAL_BATCH_SIZE,
+                          private val maxBatchSize: Int = DEFAULT_MAX_BATCH_SIZE) {
+
+    /**
+     * Batches are read on demand, so slow subscribers such as `observeOn` never receive more than they requested
+     */
+    fun decode(body: ResponseBody): Observable<List<T>> =
+            Observable.create(object : SyncOnSubscribe<Reader, List<T>>() {
+                override fun generateState() = Reader(body)
+
+                override fun next(state: Reader, observer: Observer<in List<T>>): Reader {
+                    state.next(observer)
+                    return state
+                }
+
+                override fun onUnsubscribe(state: Reader) = state.close()
+            })
+
+    /**
+     * Reads one batch per request from [body]
+     */
+    private inner class Reader(private val body: ResponseBody) {
+        private var parser: JsonParser? = null
+        private var batchSize = initialBatchSize
+        private var emitted = false
+
+        fun next(observer: Observer<in List<T>>) {
+            val parser = parser ?: mapper.factory.createParser(body.byteStream()).apply {
+                parser = this
+                if (nextToken() != JsonToken.START_ARRAY) {
+                    throw JsonParseException("Expected JSON array", currentLocation)
+                }
+            }
+
+            val batch = ArrayList<T>(batchSize)
+            while (batch.size < batchSize && parser.nextToken() == JsonToken.START_OBJECT) {
+                batch.add(mapper.readValue(parser, type))
+            }
+
+            if (batch.size == batchSize) {
+                observer.onNext(batch)
+                emitted = true
+                batchSize = Math.min(batchSize * 2, maxBatchSize)
+            } else {
+                if (!batch.isEmpty() || !emitted) {
+                    observer.onNext(batch)
+                }
+                observer.onCompleted()
+            }
+        }
+
+        fun close() {
+            try {
+                parser?.close()
+            } catch (e: IOException) {
+                Timber.w(e, "Could not close JSON parser")
+            }
+            body.close()
+        }
+    }
+
+    companion object {
+        const val DEFAULT_INITIAL_BATCH_SIZE = 50
+        const val DEFAULT_MAX_BATCH_SIZE = 1000
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 bbqapp
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.bbqapp.android.api.converter
+
+import com.fasterxml.jackson.core.JsonGenerator
+import com.fasterxml.jackson.core.JsonParser
+import com.fasterxml.jackson.core.JsonToken
+import com.fasterxml.jackson.databind.DeserializationContext
+import com.fasterxml.jackson.databind.SerializerProvider
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer
+import com.fasterxml.jackson.databind.ser.std.StdSerializer
+import org.bbqapp.android.api.model.Location
+import java.io.IOException
+
+/**
+ * Writes a [Location] as GeoJSON point, e.g. `{"coordinates":[8.54,47.37],"type":"Point"}`
+ */
+class LocationSerializer : StdSerializer<Location>(Location::class.java) {
+    @Throws(IOException::class)
+    override fun serialize(value: Location, gen: JsonGenerator, provider: SerializerProvider) {
+        gen.writeStartObject()
+        gen.writeArrayFieldStart("coordinates")
+        gen.writeNumber(value.lon)
+        gen.writeNumber(value.lat)
+        gen.writeEndArray()
+        gen.writeStringField("type", value.type)
+        gen.writeEndObject()
+    }
+}
+
+/**
+ * Reads a GeoJSON point directly into the primitive coordinates of [Location] without an intermediate list
+ */
+class LocationDeserializer : StdDeserializer<Location>(Location::class.java) {
+    @Throws(IOException::class)
+    override fun deserialize(parser: JsonParser, context: DeserializationContext): Location {
+        var lat = Double.NaN
+        var lon = Double.NaN
+        var type = Location.POINT
+
+        var token = parser.currentToken
+        if (token == JsonToken.START_OBJECT) {
+            token = parser.nextToken()
+        }
+        while (token == JsonToken.FIELD_NAME) {
+            val name = parser.currentName
+            parser.nextToken()
+            when (name) {
+                "coordinates" -> {
+                    if (parser.currentToken != JsonToken.START_ARRAY || !parser.nextToken().isNumeric) {
+                        throw context.mappingException("Expected coordinates as [longitude, latitude]")
+                    }
+                    lon = parser.doubleValue
+                    if (!parser.nextToken().isNumeric) {
+                        throw context.mappingException("Expected coordinates as [longitude, latitude]")
+                    }
+                    lat = parser.doubleValue
+                    // ignore altitude
+                    while (parser.nextToken() != JsonToken.END_ARRAY) {
+                        parser.skipChildren()
+                    }
+                }
+                "type" -> type = parser.text.let { if (it == Location.POINT) Location.POINT else it }
+                else -> parser.skipChildren()
+            }
+            token = parser.nextToken()
+        }
+
+        if (lat.isNaN() || lon.isNaN()) {
+            throw context.mappingException("Location without coordinates")
+        }
+        return Location(lat, lon, type)
+    }
+}
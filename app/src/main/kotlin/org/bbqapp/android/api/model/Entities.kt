@@ -27,6 +27,10 @@ package org.bbqapp.android.api.model
 import android.net.Uri
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties
 import com.fasterxml.jackson.annotation.JsonProperty
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize
+import com.fasterxml.jackson.databind.annotation.JsonSerialize
+import org.bbqapp.android.api.converter.LocationDeserializer
+import org.bbqapp.android.api.converter.LocationSerializer
 import java.io.*
 
 import org.bbqapp.android.extension.copyTo;
@@ -43,8 +47,21 @@ data class Id(@JsonProperty("_id") override val id: String? = null) : HasId
 
 data class Address(val country: String) : Entity
 
-data class Location(
-        val coordinates: List<Double>, val type: String) : Entity
+/**
+ * GeoJSON point with primitive coordinates, serialized as `{"coordinates":[lon, lat],"type":"Point"}`
+ */
+@JsonSerialize(using = LocationSerializer::class)
+@JsonDeserialize(using = LocationDeserializer::class)
+data class Location(val lat: Double, val lon: Double, val type: String = POINT) : Entity {
+    /**
+     * Creates a location of GeoJSON coordinates in order longitude, latitude
+     */
+    constructor(coordinates: List<Double>, type: String) : this(coordinates[1], coordinates[0], type)
+
+    companion object {
+        const val POINT = "Point"
+    }
+}
 
 data class Comment(val comment: String,
                    val score: Int) : Entity
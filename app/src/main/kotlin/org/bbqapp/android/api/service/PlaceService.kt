@@ -26,6 +26,7 @@ package org.bbqapp.android.api.service
 
 import android.location.Location
 import com.google.android.gms.maps.model.LatLng
+import okhttp3.ResponseBody
 import org.bbqapp.android.api.model.*
 import retrofit2.http.*
 import rx.Observable
@@ -47,6 +48,17 @@ interface PlaceService {
     @GET("/api/places")
     fun getPlaces(@Query("location") location: Location, @Query("radius") radius: Long): Observable<List<Place>>
 
+    /**
+     * Returns places nearest to location first, skipping [offset] places and returning at most [limit] places
+     */
+    @GET("/api/places")
+    fun getPlaces(@Query("location") location: LatLng, @Query("radius") radius: Long,
+                  @Query("offset") offset: Int, @Query("limit") limit: Int): Observable<List<Place>>
+
+    @Streaming
+    @GET("/api/places")
+    fun getPlacesStream(@Query("location") location: LatLng, @Query("radius") radius: Long): Observable<ResponseBody>
+
     @POST("/api/places")
     fun postPlace(@Body place: Place): Observable<Id>
 
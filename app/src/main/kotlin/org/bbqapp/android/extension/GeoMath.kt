@@ -0,0 +1,127 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 bbqapp
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.bbqapp.android.extension
+
+/**
+ * Pure JVM distance math on a sphere with the mean earth radius. Coordinates are given in degrees, distances are
+ * returned in meters.
+ *
+ * [haversine] is within 0.6 % of the ellipsoidal distance of `Location.distanceBetween` for any two points and is
+ * meant for display. [Origin.distance] is an equirectangular approximation with the cosine of the origin latitude
+ * computed once. Compared to [haversine] its error stays below 0.1 % within 10 km and below 0.5 % within 100 km up
+ * to 60° latitude and grows with distance and latitude, so it is meant for ranking nearby points.
+ */
+object GeoMath {
+    const val EARTH_RADIUS = 6371008.8
+
+    private val RADIANS = Math.PI / 180
+
+    /**
+     * Great circle distance between two points
+     */
+    @JvmStatic
+    fun haversine(lat1: Double, lon1: Double, lat2: Double, lon2: Double): Double {
+        val phi1 = lat1 * RADIANS
+        val phi2 = lat2 * RADIANS
+        val sinDeltaPhi = Math.sin((phi2 - phi1) / 2)
+        val sinDeltaLambda = Math.sin((lon2 - lon1) * RADIANS / 2)
+        val h = sinDeltaPhi * sinDeltaPhi + Math.cos(phi1) * Math.cos(phi2) * sinDeltaLambda * sinDeltaLambda
+        return 2 * EARTH_RADIUS * Math.asin(Math.min(1.0, Math.sqrt(h)))
+    }
+
+    /**
+     * Great circle distances from one point to all points of [lats] and [lons] written to [distances]
+     */
+    @JvmStatic
+    fun haversine(lat: Double, lon: Double, lats: DoubleArray, lons: DoubleArray, distances: DoubleArray) {
+        val phi = lat * RADIANS
+        val cosPhi = Math.cos(phi)
+        for (i in lats.indices) {
+            val phi2 = lats[i] * RADIANS
+            val sinDeltaPhi = Math.sin((phi2 - phi) / 2)
+            val sinDeltaLambda = Math.sin((lons[i] - lon) * RADIANS / 2)
+            val h = sinDeltaPhi * sinDeltaPhi + cosPhi * Math.cos(phi2) * sinDeltaLambda * sinDeltaLambda
+            distances[i] = 2 * EARTH_RADIUS * Math.asin(Math.min(1.0, Math.sqrt(h)))
+        }
+    }
+
+    /**
+     * Equirectangular approximation of the distance between two points, see [Origin] to measure many points
+     */
+    @JvmStatic
+    fun equirectangular(lat1: Double, lon1: Double, lat2: Double, lon2: Double) =
+            Origin(lat1, lon1).distance(lat2, lon2)
+
+    /**
+     * Longitude difference wrapped to -180..180 so that distances across the antimeridian stay short
+     */
+    private fun deltaLongitude(lon1: Double, lon2: Double): Double {
+        val delta = lon2 - lon1
+        return if (delta > 180) delta - 360 else if (delta < -180) delta + 360 else delta
+    }
+
+    /**
+     * Point to measure equirectangular distances from
+     */
+    class Origin(val lat: Double, val lon: Double) {
+        private val cosLat = Math.cos(lat * RADIANS)
+
+        /**
+         * Squared distance in radians, increases with the distance and saves the square root when ranking
+         */
+        fun squaredDistance(lat: Double, lon: Double): Double {
+            val x = deltaLongitude(this.lon, lon) * cosLat
+            val y = lat - this.lat
+            return (x * x + y * y) * RADIANS * RADIANS
+        }
+
+        fun distance(lat: Double, lon: Double) = EARTH_RADIUS * Math.sqrt(squaredDistance(lat, lon))
+
+        /**
+         * Squared distance in radians to the nearest point of a box, no point within the box is closer
+         */
+        fun squaredDistance(south: Double, west: Double, north: Double, east: Double): Double {
+            val x = if (lon >= west && lon <= east) {
+                0.0
+            } else {
+                Math.min(Math.abs(deltaLongitude(lon, west)), Math.abs(deltaLongitude(lon, east))) * cosLat
+            }
+            val y = if (lat < south) south - lat else if (lat > north) lat - north else 0.0
+            return (x * x + y * y) * RADIANS * RADIANS
+        }
+
+        /**
+         * Distances to all points of [lats] and [lons] written to [distances]
+         */
+        fun distances(lats: DoubleArray, lons: DoubleArray, distances: FloatArray) {
+            val factor = EARTH_RADIUS * RADIANS
+            for (i in lats.indices) {
+                val x = deltaLongitude(lon, lons[i]) * cosLat
+                val y = lats[i] - lat
+                distances[i] = (factor * Math.sqrt(x * x + y * y)).toFloat()
+            }
+        }
+    }
+}
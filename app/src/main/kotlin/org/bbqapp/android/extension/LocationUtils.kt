@@ -27,11 +27,35 @@ package org.bbqapp.android.extension
 import android.location.Address
 import android.location.Location
 import com.google.android.gms.maps.model.LatLng
+import java.util.concurrent.TimeUnit
 import org.bbqapp.android.api.model.Location as ApiLocation
 
 fun Address.getLatLng() = LatLng(latitude, longitude)
 fun Location.getLatLng() = LatLng(latitude, longitude)
 fun ApiLocation.getLatLng() = LatLng(getLatitude(), getLongitude())
 
-fun ApiLocation.getLatitude() = coordinates[1]
-fun ApiLocation.getLongitude() = coordinates[0]
\ No newline at end of file
+fun ApiLocation.getLatitude() = lat
+fun ApiLocation.getLongitude() = lon
+
+/**
+ * Checks if this fix is better than the other one. A fix more than two minutes newer always wins, otherwise the more
+ * accurate fix wins and the newer one if both are equally accurate.
+ */
+fun Location.isBetterThan(other: Location?): Boolean {
+    if (other == null) {
+        return true
+    }
+
+    val age = TimeUnit.NANOSECONDS.toMillis(other.elapsedRealtimeNanos - elapsedRealtimeNanos)
+    if (age > SIGNIFICANTLY_NEWER) {
+        return false
+    } else if (age < -SIGNIFICANTLY_NEWER) {
+        return true
+    }
+
+    val accuracyDelta = (if (hasAccuracy()) accuracy else Float.MAX_VALUE) -
+            (if (other.hasAccuracy()) other.accuracy else Float.MAX_VALUE)
+    return accuracyDelta < 0 || (accuracyDelta == 0f && age < 0)
+}
+
+private val SIGNIFICANTLY_NEWER = TimeUnit.MINUTES.toMillis(2)
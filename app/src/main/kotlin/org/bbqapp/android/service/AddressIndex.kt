@@ -0,0 +1,206 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 bbqapp
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.bbqapp.android.service
+
+import android.location.Address
+import com.fasterxml.jackson.databind.ObjectMapper
+import com.fasterxml.jackson.module.kotlin.readValue
+import org.bbqapp.android.extension.searchWords
+import org.bbqapp.android.service.GeocodeCache.CachedAddress
+import timber.log.Timber
+import java.io.File
+import java.io.IOException
+import java.util.*
+
+/**
+ * Local prefix index of resolved and selected addresses, persisted in [file].
+ *
+ * Address words are kept in a sorted table, a query matches an address if each query word is a prefix of one of its
+ * words. Selected addresses rank before resolved ones, more recently used first. At most [maxEntries] addresses are
+ * kept, the lowest ranked ones are removed first.
+ */
+class AddressIndex(private val file: File,
+                   private val mapper: ObjectMapper,
+                   private val maxEntries: Int = DEFAULT_MAX_ENTRIES,
+                   private val clock: () -> Long = { System.currentTimeMillis() }) {
+
+    data class Entry(val address: CachedAddress, val selections: Int = 0, val time: Long = 0)
+
+    private var entries: MutableMap<String, Entry>? = null
+    private var dirty = false
+
+    // sorted words and the keys of their entries, rebuilt lazily after changes
+    private var words = emptyArray<String>()
+    private var wordKeys = emptyArray<String>()
+    private var table = false
+
+    /**
+     * Adds resolved addresses, known addresses keep their rank
+     */
+    fun add(addresses: List<Address>) = addCached(addresses.map { CachedAddress.of(it) })
+
+    /**
+     * Adds the selected address or ranks it up
+     */
+    fun select(address: Address) = selectCached(CachedAddress.of(address))
+
+    /**
+     * Addresses matching [query] in rank order, recently selected addresses for an empty query
+     */
+    fun search(query: String, limit: Int) = find(query, limit).map { it.toAddress() }
+
+    /**
+     * Writes pending changes to [file]
+     */
+    @Synchronized fun save() {
+        if (!dirty) {
+            return
+        }
+
+        val tmp = File(file.path + ".tmp")
+        try {
+            file.parentFile?.mkdirs()
+            mapper.writeValue(tmp, entries().values.toList())
+            if (!tmp.renameTo(file)) {
+                throw IOException("Could not rename $tmp to $file")
+            }
+            dirty = false
+        } catch (e: IOException) {
+            Timber.w(e, "Could not write address index")
+            tmp.delete()
+        }
+    }
+
+    @Synchronized internal fun addCached(addresses: List<CachedAddress>) {
+        val now = clock()
+        for (address in addresses) {
+            val key = key(address)
+            if (key.isEmpty()) {
+                continue
+            }
+
+            val entry = entries()[key]
+            entries()[key] = entry?.copy(time = Math.max(entry.time, now)) ?: Entry(address, 0, now)
+        }
+        changed()
+    }
+
+    @Synchronized internal fun selectCached(address: CachedAddress) {
+        val key = key(address)
+        if (key.isEmpty()) {
+            return
+        }
+
+        val entry = entries()[key]
+        entries()[key] = Entry(address, (entry?.selections ?: 0) + 1, clock())
+        changed()
+    }
+
+    @Synchronized internal fun find(query: String, limit: Int): List<CachedAddress> {
+        val queryWords = query.searchWords()
+        val candidates = if (queryWords.isEmpty()) {
+            entries().values.filter { it.selections > 0 }
+        } else {
+            var keys: Set<String>? = null
+            for (word in queryWords) {
+                val matches = prefixed(word)
+                keys = keys?.intersect(matches) ?: matches
+                if (keys.isEmpty()) {
+                    return emptyList()
+                }
+            }
+            keys!!.map { entries()[it]!! }
+        }
+
+        return candidates.sortedWith(RANK).take(limit).map { it.address }
+    }
+
+    private fun prefixed(prefix: String): Set<String> {
+        if (!table) {
+            val pairs = entries().flatMap { entry ->
+                entry.value.address.lines.flatMap { it.searchWords() }.distinct().map { it to entry.key }
+            }.sortedBy { it.first }
+            words = pairs.map { it.first }.toTypedArray()
+            wordKeys = pairs.map { it.second }.toTypedArray()
+            table = true
+        }
+
+        val keys = HashSet<String>()
+        var i = lowerBound(prefix)
+        while (i < words.size && words[i].startsWith(prefix)) {
+            keys.add(wordKeys[i++])
+        }
+        return keys
+    }
+
+    private fun lowerBound(word: String): Int {
+        var low = 0
+        var high = words.size
+        while (low < high) {
+            val mid = (low + high).ushr(1)
+            if (words[mid] < word) low = mid + 1 else high = mid
+        }
+        return low
+    }
+
+    private fun changed() {
+        val entries = entries()
+        if (entries.size > maxEntries) {
+            entries.values.sortedWith(RANK).drop(maxEntries).forEach { entries.remove(key(it.address)) }
+        }
+        dirty = true
+        table = false
+    }
+
+    private fun entries(): MutableMap<String, Entry> {
+        entries?.let { return it }
+
+        val loaded = HashMap<String, Entry>()
+        if (file.exists()) {
+            try {
+                mapper.readValue<List<Entry>>(file).forEach { loaded[key(it.address)] = it }
+            } catch (e: IOException) {
+                Timber.w(e, "Could not read address index")
+            }
+        }
+        entries = loaded
+        return loaded
+    }
+
+    companion object {
+        const val DEFAULT_MAX_ENTRIES = 500
+
+        private val RANK = Comparator<Entry> { a, b ->
+            if (a.selections != b.selections) b.selections.compareTo(a.selections) else b.time.compareTo(a.time)
+        }
+
+        /**
+         * Identity of an address, addresses with the same lines are duplicates
+         */
+        fun key(address: CachedAddress) = address.lines.flatMap { it.searchWords() }.joinToString(" ")
+
+        fun key(address: Address) = key(CachedAddress.of(address))
+    }
+}
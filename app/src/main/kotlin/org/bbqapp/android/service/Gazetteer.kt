@@ -0,0 +1,161 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 bbqapp
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.bbqapp.android.service
+
+import org.bbqapp.android.extension.GeoMath
+import java.io.File
+import java.io.IOException
+import java.io.RandomAccessFile
+import java.nio.ByteBuffer
+import java.nio.channels.FileChannel
+import java.util.*
+
+/**
+ * Offline place names with their centroids, read from a memory-mapped binary file.
+ *
+ * Records are stored as an implicit k-d tree: the record in the middle of a range splits it, by latitude at even and
+ * by longitude at odd depths. Nearest place queries descend the tree and skip ranges whose bounding box is farther
+ * away than the places found so far, using the equirectangular distance of [GeoMath.Origin].
+ *
+ * File format, big endian: magic, version and record count as ints, then the records of [RECORD_SIZE] bytes with
+ * latitude and longitude in microdegrees, the name offset within the name section and a two letter country code,
+ * then the name section of UTF-8 names each prefixed by its length as unsigned short. Files are written by the
+ * writeGazetteer build task from the unit test sources.
+ */
+class Gazetteer(private val buffer: ByteBuffer) {
+
+    data class Place(val name: String, val countryCode: String, val lat: Double, val lon: Double)
+
+    val size: Int
+    private val namesOffset: Int
+
+    init {
+        if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+            throw IOException("Not a gazetteer of version $VERSION")
+        }
+        size = buffer.getInt(8)
+        namesOffset = HEADER_SIZE + size * RECORD_SIZE
+    }
+
+    /**
+     * Up to [limit] places nearest to the given coordinates within [maxDistance] meters, nearest first
+     */
+    @JvmOverloads
+    fun nearest(lat: Double, lon: Double, limit: Int = 1, maxDistance: Double = Double.MAX_VALUE): List<Place> {
+        if (limit <= 0) {
+            return emptyList()
+        }
+
+        val search = Search(GeoMath.Origin(lat, lon), limit, maxDistance / GeoMath.EARTH_RADIUS)
+        search.visit(0, size, 0, -90.0, -180.0, 90.0, 180.0)
+        return search.found.sortedBy { it.first }.map { place(it.second) }
+    }
+
+    private inner class Search(val origin: GeoMath.Origin, val limit: Int, maxDistance: Double) {
+        // farthest found place first, so that it is replaced by nearer ones
+        val found = PriorityQueue<Pair<Double, Int>>(Math.min(limit, 16), compareByDescending<Pair<Double, Int>> { it.first })
+        val maxSquaredDistance = maxDistance * maxDistance
+
+        private fun bound() = if (found.size < limit) maxSquaredDistance else found.peek().first
+
+        fun visit(low: Int, high: Int, depth: Int, south: Double, west: Double, north: Double, east: Double) {
+            if (low >= high || origin.squaredDistance(south, west, north, east) > bound()) {
+                return
+            }
+
+            val mid = (low + high).ushr(1)
+            val lat = latitude(mid)
+            val lon = longitude(mid)
+            val distance = origin.squaredDistance(lat, lon)
+            if (distance <= bound()) {
+                found.add(distance to mid)
+                if (found.size > limit) {
+                    found.poll()
+                }
+            }
+
+            if (depth % 2 == 0) {
+                if (origin.lat < lat) {
+                    visit(low, mid, depth + 1, south, west, lat, east)
+                    visit(mid + 1, high, depth + 1, lat, west, north, east)
+                } else {
+                    visit(mid + 1, high, depth + 1, lat, west, north, east)
+                    visit(low, mid, depth + 1, south, west, lat, east)
+                }
+            } else {
+                if (origin.lon < lon) {
+                    visit(low, mid, depth + 1, south, west, north, lon)
+                    visit(mid + 1, high, depth + 1, south, lon, north, east)
+                } else {
+                    visit(mid + 1, high, depth + 1, south, lon, north, east)
+                    visit(low, mid, depth + 1, south, west, north, lon)
+                }
+            }
+        }
+    }
+
+    private fun latitude(record: Int) = buffer.getInt(HEADER_SIZE + record * RECORD_SIZE) / MICRODEGREES
+
+    private fun longitude(record: Int) = buffer.getInt(HEADER_SIZE + record * RECORD_SIZE + 4) / MICRODEGREES
+
+    private fun place(record: Int): Place {
+        val offset = HEADER_SIZE + record * RECORD_SIZE
+        val country = String(charArrayOf(buffer.get(offset + 12).toChar(), buffer.get(offset + 13).toChar()))
+
+        // a duplicate keeps reads of concurrent queries independent
+        val names = buffer.duplicate()
+        names.position(namesOffset + buffer.getInt(offset + 8))
+        val name = ByteArray(names.short.toInt() and 0xffff)
+        names.get(name)
+
+        return Place(String(name, Charsets.UTF_8), country, latitude(record), longitude(record))
+    }
+
+    companion object {
+        const val MAGIC = 0x42425147
+        const val VERSION = 1
+        const val HEADER_SIZE = 12
+        const val RECORD_SIZE = 14
+        const val MICRODEGREES = 1e6
+
+        /**
+         * Maps [length] bytes of [channel] from [offset] on, e.g. an uncompressed asset within the apk
+         */
+        @JvmStatic
+        fun open(channel: FileChannel, offset: Long, length: Long) =
+                Gazetteer(channel.map(FileChannel.MapMode.READ_ONLY, offset, length))
+
+        @JvmStatic
+        fun open(file: File): Gazetteer {
+            val input = RandomAccessFile(file, "r")
+            try {
+                // the mapping stays valid after the file is closed
+                return open(input.channel, 0, input.length())
+            } finally {
+                input.close()
+            }
+        }
+    }
+}
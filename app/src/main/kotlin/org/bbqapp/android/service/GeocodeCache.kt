@@ -0,0 +1,143 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 bbqapp
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.bbqapp.android.service
+
+import android.location.Address
+import com.fasterxml.jackson.databind.ObjectMapper
+import com.fasterxml.jackson.module.kotlin.readValue
+import org.bbqapp.android.api.cache.DiskLru
+import timber.log.Timber
+import java.io.File
+import java.io.IOException
+import java.util.*
+
+/**
+ * Persists geocoding results in [directory], one file per key of a [DiskLru]. At most [maxEntries] results are kept,
+ * the least recently used result is removed first. Results older than [maxAge] milliseconds are ignored.
+ */
+class GeocodeCache(directory: File,
+                   private val mapper: ObjectMapper,
+                   maxEntries: Int = DEFAULT_MAX_ENTRIES,
+                   private val maxAge: Long = DEFAULT_MAX_AGE,
+                   private val clock: () -> Long = { System.currentTimeMillis() }) {
+
+    data class Entry(val time: Long, val addresses: List<CachedAddress>)
+
+    /**
+     * Serializable subset of [Address]
+     */
+    data class CachedAddress(val locale: String,
+                             val lines: List<String>,
+                             val featureName: String? = null,
+                             val thoroughfare: String? = null,
+                             val subThoroughfare: String? = null,
+                             val postalCode: String? = null,
+                             val locality: String? = null,
+                             val subLocality: String? = null,
+                             val adminArea: String? = null,
+                             val subAdminArea: String? = null,
+                             val countryCode: String? = null,
+                             val countryName: String? = null,
+                             val latitude: Double? = null,
+                             val longitude: Double? = null) {
+
+        fun toAddress(): Address {
+            val parts = locale.split('_')
+            val address = Address(Locale(parts[0], parts.getOrElse(1) { "" }, parts.getOrElse(2) { "" }))
+            lines.forEachIndexed { i, line -> address.setAddressLine(i, line) }
+            address.featureName = featureName
+            address.thoroughfare = thoroughfare
+            address.subThoroughfare = subThoroughfare
+            address.postalCode = postalCode
+            address.locality = locality
+            address.subLocality = subLocality
+            address.adminArea = adminArea
+            address.subAdminArea = subAdminArea
+            address.countryCode = countryCode
+            address.countryName = countryName
+            latitude?.let { address.latitude = it }
+            longitude?.let { address.longitude = it }
+            return address
+        }
+
+        companion object {
+            fun of(address: Address) = CachedAddress(
+                    address.locale.toString(),
+                    (0..address.maxAddressLineIndex).map { address.getAddressLine(it) },
+                    address.featureName,
+                    address.thoroughfare,
+                    address.subThoroughfare,
+                    address.postalCode,
+                    address.locality,
+                    address.subLocality,
+                    address.adminArea,
+                    address.subAdminArea,
+                    address.countryCode,
+                    address.countryName,
+                    if (address.hasLatitude()) address.latitude else null,
+                    if (address.hasLongitude()) address.longitude else null)
+        }
+    }
+
+    private val disk = DiskLru(directory, maxEntries, clock = clock)
+
+    fun get(key: String) = getCached(key)?.map { it.toAddress() }
+
+    fun put(key: String, addresses: List<Address>) = putCached(key, addresses.map { CachedAddress.of(it) })
+
+    @Synchronized internal fun getCached(key: String): List<CachedAddress>? {
+        val file = disk.get(key) ?: return null
+        try {
+            val entry = mapper.readValue<Entry>(file)
+            if (clock() - entry.time > maxAge) {
+                remove(key)
+                return null
+            }
+            return entry.addresses
+        } catch (e: IOException) {
+            Timber.w(e, "Could not read cached addresses of $key")
+            remove(key)
+            return null
+        }
+    }
+
+    @Synchronized internal fun putCached(key: String, addresses: List<CachedAddress>) {
+        val entry = Entry(clock(), addresses)
+        try {
+            disk.put(key) { mapper.writeValue(it, entry) }
+        } catch (e: IOException) {
+            Timber.w(e, "Could not write cached addresses of $key")
+        }
+    }
+
+    @Synchronized fun remove(key: String) {
+        disk.remove(key)
+    }
+
+    companion object {
+        const val DEFAULT_MAX_ENTRIES = 1000
+        const val DEFAULT_MAX_AGE = 30L * 24 * 60 * 60 * 1000
+    }
+}
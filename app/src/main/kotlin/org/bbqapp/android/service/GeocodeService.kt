@@ -25,19 +25,144 @@
 package org.bbqapp.android.service
 
 import android.content.Context
+import android.location.Address
 import android.location.Geocoder
 import android.location.Location
 import com.google.android.gms.maps.model.LatLng
+import org.bbqapp.android.api.cache.Memoizer
 import org.bbqapp.android.extension.getLatLng
 import rx.Observable
+import rx.Scheduler
+import rx.schedulers.Schedulers
+import rx.subscriptions.Subscriptions
+import timber.log.Timber
+import java.io.IOException
+import java.util.*
+import java.util.concurrent.LinkedBlockingQueue
+import java.util.concurrent.ThreadPoolExecutor
+import java.util.concurrent.TimeUnit
 
 fun Geocoder.resolve(text: String, maxResults: Int) = Observable.fromCallable { getFromLocationName(text, maxResults) }
 fun Geocoder.resolve(lat: Double, long: Double,  maxResults: Int) = Observable.fromCallable { getFromLocation(lat, long, maxResults) }
 fun Geocoder.resolve(latLng: LatLng,  maxResults: Int) = resolve(latLng.latitude, latLng.longitude, maxResults)
 fun Geocoder.resolve(location: Location,  maxResults: Int) = resolve(location.getLatLng(), maxResults)
 
-class GeocodeService(private val context: Context) {
-    fun resolve(location: Location, maxResults: Int) = Geocoder(context).resolve(location, maxResults)
-    fun resolve(position: LatLng, maxResults: Int) = Geocoder(context).resolve(position, maxResults)
-    fun resolve(location: String, maxResults: Int) = Geocoder(context).resolve(location, maxResults)
-}
\ No newline at end of file
+/**
+ * Resolves addresses with one [Geocoder] on a single background thread.
+ *
+ * Results are cached in memory and in [cache], keyed by coordinates rounded to about 10 m or by normalized text.
+ * Identical concurrent lookups share one request, unsubscribing removes lookups which have not started yet from the
+ * queue, so a caller switching to a newer lookup leaves only that one pending.
+ * If a reverse lookup fails, e.g. without network, or finds nothing, the nearest place names of [gazetteer] are
+ * returned instead. These and empty results are not cached, so the next lookup asks the [Geocoder] again.
+ */
+class GeocodeService(context: Context,
+                     private val cache: GeocodeCache,
+                     private val gazetteer: Gazetteer? = null,
+                     private val ioScheduler: Scheduler = Schedulers.io()) {
+
+    private val geocoder = Geocoder(context)
+
+    // a single thread as Geocoder is not thread safe
+    private val executor = ThreadPoolExecutor(1, 1, KEEP_ALIVE, TimeUnit.MILLISECONDS,
+            LinkedBlockingQueue<Runnable>()).apply { allowCoreThreadTimeOut(true) }
+
+    private val memory = Memoizer<String, List<Address>>(MEMORY_TTL, MAX_MEMORY_ENTRIES)
+
+    fun resolve(location: Location, maxResults: Int) = resolve(location.latitude, location.longitude, maxResults)
+
+    fun resolve(position: LatLng, maxResults: Int) = resolve(position.latitude, position.longitude, maxResults)
+
+    fun resolve(latitude: Double, longitude: Double, maxResults: Int): Observable<List<Address>> {
+        val key = "${Locale.getDefault()}:${cell(latitude, longitude)}:$maxResults"
+        val lookup = if (Geocoder.isPresent()) {
+            resolve(key, geocoder.resolve(latitude, longitude, maxResults))
+        } else {
+            Observable.error<List<Address>>(IOException("No geocoder present"))
+        }
+        return lookup
+                .map { if (it.isEmpty()) offline(latitude, longitude, maxResults) else it }
+                .onErrorResumeNext { error ->
+                    val places = offline(latitude, longitude, maxResults)
+                    if (places.isEmpty()) {
+                        Observable.error<List<Address>>(error)
+                    } else {
+                        Timber.w(error, "Resolved offline place names")
+                        Observable.just(places)
+                    }
+                }
+    }
+
+    fun resolve(location: String, maxResults: Int): Observable<List<Address>> {
+        val key = "${Locale.getDefault()}:${normalize(location)}:$maxResults"
+        return resolve(key, geocoder.resolve(location, maxResults))
+    }
+
+    private fun resolve(key: String, lookup: Observable<List<Address>>) = memory.get(key) {
+        Observable.fromCallable { cache.get(key) }
+                .subscribeOn(ioScheduler)
+                .flatMap { cached ->
+                    if (cached != null) {
+                        Observable.just(cached)
+                    } else {
+                        queue(lookup).observeOn(ioScheduler).doOnNext { if (it.isNotEmpty()) cache.put(key, it) }
+                    }
+                }
+    }.doOnNext { if (it.isEmpty()) memory.invalidate(key) }
+
+    /**
+     * Subscribes to [lookup] on [executor], a lookup unsubscribed before it started is removed from the queue
+     */
+    private fun <T> queue(lookup: Observable<T>) = Observable.create<T> { subscriber ->
+        val task = Runnable {
+            if (!subscriber.isUnsubscribed) {
+                lookup.unsafeSubscribe(subscriber)
+            }
+        }
+        subscriber.add(Subscriptions.create { executor.remove(task) })
+        executor.execute(task)
+    }
+
+    /**
+     * Nearest place names of [gazetteer] as addresses, empty without a gazetteer or a place nearby
+     */
+    private fun offline(latitude: Double, longitude: Double, maxResults: Int): List<Address> =
+            gazetteer?.nearest(latitude, longitude, maxResults, MAX_OFFLINE_DISTANCE)?.map { toAddress(it) }.orEmpty()
+
+    companion object {
+        private const val MAX_OFFLINE_DISTANCE = 50000.0
+        private const val KEEP_ALIVE = 30L * 1000
+        private const val MEMORY_TTL = 24L * 60 * 60 * 1000
+        private const val MAX_MEMORY_ENTRIES = 128
+        // 1e-4 degrees are 11 m of latitude and at most 11 m of longitude
+        private const val PRECISION = 10000.0
+
+        private fun round(degrees: Double) = Math.round(degrees * PRECISION)
+
+        /**
+         * Cell of about 10 m containing the given coordinates, reverse lookups within one cell share their result
+         */
+        fun cell(latitude: Double, longitude: Double) = "${round(latitude)},${round(longitude)}"
+
+        /**
+         * Lower case text with trimmed and collapsed white space
+         */
+        fun normalize(text: String) = text.trim().toLowerCase().replace(WHITESPACE, " ")
+
+        private val WHITESPACE = Regex("\\s+")
+
+        /**
+         * Address of a place name with the country as second line, like the [Geocoder] lists it
+         */
+        private fun toAddress(place: Gazetteer.Place): Address {
+            val address = Address(Locale.getDefault())
+            address.setAddressLine(0, place.name)
+            address.setAddressLine(1, Locale("", place.countryCode).displayCountry)
+            address.locality = place.name
+            address.countryCode = place.countryCode
+            address.latitude = place.lat
+            address.longitude = place.lon
+            return address
+        }
+    }
+}
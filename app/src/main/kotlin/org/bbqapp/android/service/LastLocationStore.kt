@@ -0,0 +1,113 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 bbqapp
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.bbqapp.android.service
+
+import android.content.SharedPreferences
+import android.location.Location
+import android.os.SystemClock
+import org.bbqapp.android.extension.isBetterThan
+import java.util.concurrent.TimeUnit
+
+/**
+ * Persists the best recent location fix with its time and accuracy so that it is available at once after a cold
+ * start. Fixes are kept in memory and written at most every [writeInterval] milliseconds unless they moved more than
+ * [writeDistance] meters.
+ */
+class LastLocationStore(private val preferences: SharedPreferences,
+                        private val writeInterval: Long = DEFAULT_WRITE_INTERVAL,
+                        private val writeDistance: Float = DEFAULT_WRITE_DISTANCE) {
+
+    @Volatile private var location: Location? = null
+    @Volatile private var loaded = false
+    private var written: Location? = null
+
+    /**
+     * Returns the stored fix, its elapsed realtime is derived from the stored wall clock time
+     */
+    fun get(): Location? {
+        if (!loaded) {
+            synchronized(this) {
+                if (!loaded) {
+                    location = read()
+                    written = location
+                    loaded = true
+                }
+            }
+        }
+        return location
+    }
+
+    /**
+     * Stores the fix if it is better than the stored one
+     */
+    fun put(location: Location) {
+        if (!location.isBetterThan(get())) {
+            return
+        }
+
+        synchronized(this) {
+            this.location = location
+
+            val written = this.written
+            if (written == null || location.distanceTo(written) >= writeDistance ||
+                    location.time - written.time >= writeInterval) {
+                this.written = location
+                preferences.edit()
+                        .putLong(LATITUDE, java.lang.Double.doubleToRawLongBits(location.latitude))
+                        .putLong(LONGITUDE, java.lang.Double.doubleToRawLongBits(location.longitude))
+                        .putFloat(ACCURACY, if (location.hasAccuracy()) location.accuracy else Float.MAX_VALUE)
+                        .putLong(TIME, location.time)
+                        .apply()
+            }
+        }
+    }
+
+    private fun read(): Location? {
+        if (!preferences.contains(TIME)) {
+            return null
+        }
+
+        val location = Location(PROVIDER)
+        location.latitude = java.lang.Double.longBitsToDouble(preferences.getLong(LATITUDE, 0))
+        location.longitude = java.lang.Double.longBitsToDouble(preferences.getLong(LONGITUDE, 0))
+        location.accuracy = preferences.getFloat(ACCURACY, Float.MAX_VALUE)
+        location.time = preferences.getLong(TIME, 0)
+
+        val age = Math.max(0, System.currentTimeMillis() - location.time)
+        location.elapsedRealtimeNanos = SystemClock.elapsedRealtimeNanos() - TimeUnit.MILLISECONDS.toNanos(age)
+        return location
+    }
+
+    companion object {
+        const val PROVIDER = "persisted"
+        const val DEFAULT_WRITE_INTERVAL = 60L * 1000
+        const val DEFAULT_WRITE_DISTANCE = 50f
+
+        private const val LATITUDE = "latitude"
+        private const val LONGITUDE = "longitude"
+        private const val ACCURACY = "accuracy"
+        private const val TIME = "time"
+    }
+}
@@ -0,0 +1,79 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 bbqapp
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.bbqapp.android.service
+
+import android.location.Criteria
+
+/**
+ * Location needs of one subscriber of [LocationService]
+ *
+ * @param accuracy required accuracy in meters
+ * @param interval minimum time between two fixes in milliseconds
+ * @param displacement minimum distance between two fixes in meters
+ */
+data class LocationPolicy(val accuracy: Float, val interval: Long, val displacement: Float) {
+
+    /**
+     * Returns the least demanding policy which satisfies this and the other policy
+     */
+    fun merge(other: LocationPolicy) = LocationPolicy(
+            Math.min(accuracy, other.accuracy),
+            Math.min(interval, other.interval),
+            Math.min(displacement, other.displacement))
+
+    fun toCriteria(): Criteria {
+        val criteria = Criteria()
+        if (accuracy <= FINE_ACCURACY) {
+            criteria.accuracy = Criteria.ACCURACY_FINE
+            criteria.powerRequirement = Criteria.POWER_HIGH
+        } else {
+            criteria.accuracy = Criteria.ACCURACY_COARSE
+            criteria.powerRequirement = Criteria.POWER_LOW
+        }
+        return criteria
+    }
+
+    companion object {
+        /**
+         * Accuracy in meters up to which GPS is required
+         */
+        const val FINE_ACCURACY = 100f
+
+        /**
+         * Rough position, e.g. to show the user on a map
+         */
+        @JvmField val COARSE = LocationPolicy(500f, 10L * 1000, 50f)
+
+        /**
+         * Position to sort or fetch nearby places
+         */
+        @JvmField val NEARBY = LocationPolicy(FINE_ACCURACY, 5L * 1000, 10f)
+
+        /**
+         * Exact position, e.g. to create a place
+         */
+        @JvmField val PRECISE = LocationPolicy(20f, 1000L, 0f)
+    }
+}
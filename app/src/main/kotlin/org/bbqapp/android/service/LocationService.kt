@@ -24,26 +24,85 @@
 
 package org.bbqapp.android.service
 
-import android.location.Criteria
 import android.location.Location
 import android.location.LocationListener
 import android.location.LocationManager
 import android.os.Bundle
-import android.os.Looper
+import android.os.HandlerThread
+import org.bbqapp.android.extension.isBetterThan
+import rx.Observable
 import rx.subjects.ReplaySubject
 import timber.log.Timber
+import java.util.*
+import java.util.concurrent.TimeUnit
 
-class LocationService(private val locationManager: LocationManager) {
+/**
+ * Provides device locations to subscribers which declare their needs as [LocationPolicy].
+ *
+ * Policies of all active subscribers are merged and [LocationManager] is registered with the least demanding
+ * combined policy, it is re-registered whenever a subscriber comes or goes. Every subscriber receives fixes at most
+ * as often as its own policy requires.
+ *
+ * Fixes are delivered on a background looper, subscribers which update views have to observe on the main thread.
+ */
+class LocationService(private val locationManager: LocationManager, private val store: LastLocationStore) {
 
-    private var lastLocation: Location? = null
+    @Volatile private var lastLocation: Location? = null
 
     private val subject = ReplaySubject.createWithSize<Location>(1)
-    val location = subject.doOnSubscribe { subscribe() }.doOnUnsubscribe { unsubscribe() }.share()
+    // fixes of the looper and last known locations of subscribing threads may arrive concurrently
+    private val serializedSubject = subject.toSerialized()
+
+    private val looper by lazy { HandlerThread(javaClass.simpleName).apply { start() }.looper }
+
+    private val policies = ArrayList<LocationPolicy>()
+    private var registeredPolicy: LocationPolicy? = null
+
+    /**
+     * Precise locations, see [getLocation]
+     */
+    val location: Observable<Location> = getLocation(LocationPolicy.PRECISE)
+
+    /**
+     * Returns locations which satisfy the policy, the last known location is emitted first
+     */
+    fun getLocation(policy: LocationPolicy): Observable<Location> =
+            throttle(subject, policy.displacement, policy.interval)
+                    .doOnSubscribe { add(policy) }
+                    .doOnUnsubscribe { remove(policy) }
+
+    /**
+     * Emits the first location and afterwards only locations at least [minDistance] meters away from the last
+     * emitted location or received at least [maxInterval] milliseconds after it. Meant for consumers which re-sort or
+     * refetch on location changes and don't need every fix.
+     */
+    @JvmOverloads
+    fun getSignificantLocation(minDistance: Float = DEFAULT_MIN_DISTANCE,
+                               maxInterval: Long = DEFAULT_MAX_INTERVAL): Observable<Location> =
+            throttle(getLocation(LocationPolicy.NEARBY.copy(displacement = minDistance)), minDistance, maxInterval)
+
+    /**
+     * Passes the first location and afterwards only locations at least [minDistance] meters away from the last
+     * passed location or at least [minInterval] milliseconds after it
+     */
+    private fun throttle(source: Observable<Location>, minDistance: Float, minInterval: Long) = Observable.defer {
+        var last: Location? = null
+        source.filter {
+            val previous = last
+            val significant = previous == null || it.distanceTo(previous) >= minDistance ||
+                    TimeUnit.NANOSECONDS.toMillis(it.elapsedRealtimeNanos - previous.elapsedRealtimeNanos) >= minInterval
+            if (significant) {
+                last = it
+            }
+            significant
+        }
+    }
 
     private val listener: LocationListener = object : LocationListener {
         override fun onLocationChanged(location: Location) {
             lastLocation = location
-            subject.onNext(location)
+            serializedSubject.onNext(location)
+            store.put(location)
         }
 
         override fun onStatusChanged(provider: String, status: Int, extras: Bundle) {
@@ -60,24 +119,25 @@ class LocationService(private val locationManager: LocationManager) {
         return if (lastLocation != null) lastLocation else getLastKnownLocation()
     }
 
+    /**
+     * Returns the best of the last known fixes of all providers and the persisted fix
+     */
     @Throws(SecurityException::class)
     protected fun getLastKnownLocation(): Location? {
-        var location = getLastLocation(LocationManager.GPS_PROVIDER)
-
-        if (location == null) {
-            location = getLastLocation(LocationManager.NETWORK_PROVIDER)
-        }
-        if (location == null) {
-            location = getLastLocation(LocationManager.PASSIVE_PROVIDER)
+        var best = store.get()
+        for (provider in PROVIDERS) {
+            val location = getLastLocation(provider)
+            if (location != null && location.isBetterThan(best)) {
+                best = location
+            }
         }
-
-        return location
+        return best
     }
 
     @Throws(SecurityException::class)
     protected fun getLastLocation(provider: String): Location? {
         try {
-            return locationManager.getLastKnownLocation(LocationManager.PASSIVE_PROVIDER)
+            return locationManager.getLastKnownLocation(provider)
         } catch (e: IllegalArgumentException) {
             Timber.e(e, "Could not get last known exception of provider $provider")
             return null
@@ -85,33 +145,53 @@ class LocationService(private val locationManager: LocationManager) {
 
     }
 
-    protected fun provideCriteria(): Criteria {
-        val criteria = Criteria()
-        //criteria.isBearingRequired = true
-        criteria.accuracy = Criteria.ACCURACY_FINE
-        criteria.powerRequirement = Criteria.POWER_MEDIUM
+    @Synchronized private fun add(policy: LocationPolicy) {
+        policies.add(policy)
+        register()
 
-        return criteria
+        if (subject.value == null) {
+            try {
+                getBestLastLocation()?.let { serializedSubject.onNext(it) }
+            } catch (e: SecurityException) {
+                serializedSubject.onError(e)
+            }
+        }
     }
 
-    @Synchronized private fun subscribe() {
-        try {
-            locationManager.requestLocationUpdates(0, 0f, provideCriteria(), listener, Looper.getMainLooper())
+    @Synchronized private fun remove(policy: LocationPolicy) {
+        policies.remove(policy)
+        register()
+    }
 
-            if (subject.value == null) {
-                val bestLastLocation = getBestLastLocation()
-                bestLastLocation?.let { subject.onNext(it) }
-            }
-        } catch (e: SecurityException) {
-            subject.onError(e)
+    /**
+     * Registers for updates with the merged policy of all subscribers or unregisters if there are none
+     */
+    private fun register() {
+        var policy: LocationPolicy? = null
+        for (next in policies) {
+            policy = policy?.merge(next) ?: next
+        }
+        if (policy == registeredPolicy) {
+            return
         }
-    }
 
-    @Synchronized private fun unsubscribe() {
         try {
             locationManager.removeUpdates(listener)
+            if (policy != null) {
+                locationManager.requestLocationUpdates(policy.interval, policy.displacement, policy.toCriteria(),
+                        listener, looper)
+            }
+            registeredPolicy = policy
         } catch (e: SecurityException) {
-            subject.onError(e)
+            serializedSubject.onError(e)
         }
     }
+
+    companion object {
+        private val PROVIDERS = arrayOf(LocationManager.GPS_PROVIDER, LocationManager.NETWORK_PROVIDER,
+                LocationManager.PASSIVE_PROVIDER)
+
+        const val DEFAULT_MIN_DISTANCE = 25f
+        const val DEFAULT_MAX_INTERVAL = 60L * 1000
+    }
 }
@@ -27,7 +27,6 @@ package org.bbqapp.android.view.create
 import android.content.Context
 import android.content.Intent
 import android.location.Address
-import android.location.Geocoder
 import android.os.Bundle
 import android.widget.Toast
 import com.jakewharton.rxbinding.support.v7.widget.navigationClicks
@@ -36,16 +35,23 @@ import com.jakewharton.rxbinding.widget.textChanges
 import com.trello.rxlifecycle.kotlin.bindToLifecycle
 import kotlinx.android.synthetic.main.activity_search_address.*
 import org.bbqapp.android.R
+import org.bbqapp.android.extension.observeOnIoThread
 import org.bbqapp.android.extension.observeOnMainThread
-import org.bbqapp.android.service.resolve
+import org.bbqapp.android.service.AddressIndex
+import org.bbqapp.android.service.GeocodeService
 import org.bbqapp.android.view.BaseActivity
-import rx.internal.operators.OperatorSwitch
+import rx.Observable
+import rx.schedulers.Schedulers
+import timber.log.Timber
 import java.util.concurrent.TimeUnit
 
 class SearchAddressActivity : BaseActivity() {
 
     lateinit var adapter: LocationListAdapter
 
+    internal val geocodeService: GeocodeService by injector.instance()
+    internal val addressIndex: AddressIndex by injector.instance()
+
     override fun onCreate(savedInstanceState: Bundle?) {
         super.onCreate(savedInstanceState)
 
@@ -71,17 +77,42 @@ class SearchAddressActivity : BaseActivity() {
         super.onResume()
 
         search.textChanges()
-                .debounce(250, TimeUnit.MILLISECONDS)
-                .map { Geocoder(this).resolve(it.toString(), 10) }
-                .lift(OperatorSwitch.instance())
+                .map { it.toString() }
+                .switchMap { suggest(it) }
                 .observeOnMainThread()
-                .doOnError { Toast.makeText(this, R.string.resolve_error, Toast.LENGTH_LONG).show() }
-                .retry()
                 .bindToLifecycle(this)
                 .subscribe { adapter.set(it) }
     }
 
+    /**
+     * Local suggestions at once, merged with Geocoder results once the text did not change for [RESOLVE_DELAY]
+     */
+    private fun suggest(text: String) = Observable.fromCallable { addressIndex.search(text, MAX_RESULTS) }
+            .subscribeOn(Schedulers.io())
+            .flatMap { local ->
+                if (text.isBlank()) {
+                    Observable.just(local)
+                } else {
+                    geocodeService.resolve(text, MAX_RESULTS)
+                            .delaySubscription(RESOLVE_DELAY, TimeUnit.MILLISECONDS)
+                            .observeOnIoThread()
+                            .doOnNext { addressIndex.add(it); addressIndex.save() }
+                            .map { merge(local, it) }
+                            .observeOnMainThread()
+                            .doOnError { Toast.makeText(this, R.string.resolve_error, Toast.LENGTH_LONG).show() }
+                            .onErrorResumeNext(Observable.empty<List<Address>>())
+                            .startWith(local)
+                }
+            }
+
+    private fun merge(local: List<Address>, remote: List<Address>) =
+            (local + remote).distinctBy { AddressIndex.key(it) }.take(MAX_RESULTS)
+
     private fun finish(address: Address) {
+        Observable.fromCallable { addressIndex.select(address); addressIndex.save() }
+                .subscribeOn(Schedulers.io())
+                .subscribe({}, { Timber.w(it, "Could not remember selected address") })
+
         val intent = Intent()
         intent.putExtra("address", address)
         setResult(RESULT_OK, intent)
@@ -89,6 +120,9 @@ class SearchAddressActivity : BaseActivity() {
     }
 
     companion object {
+        private val MAX_RESULTS = 10
+        private val RESOLVE_DELAY = 250L
+
         fun createIntent(context: Context): Intent {
             return Intent(context, SearchAddressActivity::class.java);
         }
@@ -29,7 +29,6 @@ import android.content.Context
 import android.content.Intent
 import android.graphics.BitmapFactory
 import android.location.Address
-import android.location.Geocoder
 import android.location.Location
 import android.os.Bundle
 import android.view.Menu
@@ -46,11 +45,11 @@ import kotlinx.android.synthetic.main.activity_select_location.*
 import kotlinx.android.synthetic.main.toolbar.*
 import org.bbqapp.android.R
 import org.bbqapp.android.extension.*
+import org.bbqapp.android.service.GeocodeService
 import org.bbqapp.android.service.LocationService
-import org.bbqapp.android.service.resolve
 import org.bbqapp.android.view.BaseActivity
 import rx.Observable
-import rx.Subscription
+import rx.subjects.PublishSubject
 import timber.log.Timber
 import java.util.concurrent.TimeUnit
 
@@ -59,14 +58,21 @@ class SelectLocationActivity : BaseActivity(), OnMapReadyCallback, LocationSourc
     internal lateinit var googleMap: GoogleMap
 
     internal val locationService: LocationService by injector.instance()
+    internal val geocodeService: GeocodeService by injector.instance()
 
     private var currentLocation: Location? = null
     private var mapAnimatedAtStart = false
     private var marker: Marker? = null
     private var onLocationChangedListener: LocationSource.OnLocationChangedListener? = null
-    private var resolveSubscription: Subscription? = null
     private lateinit var locationListAdapter: LocationListAdapter
 
+    // marker positions while dragging and positions set at once, both resolved to addresses
+    private val dragPositions = PublishSubject.create<LatLng>()
+    private val markerPositions = PublishSubject.create<LatLng>()
+    private var dragging = false
+    private var resolvedCell: String? = null
+    private var resolvedAddresses: List<Address> = emptyList()
+
     override fun onCreate(savedInstanceState: Bundle?) {
         super.onCreate(savedInstanceState)
 
@@ -88,6 +94,8 @@ class SelectLocationActivity : BaseActivity(), OnMapReadyCallback, LocationSourc
         }
 
         addresses.setScrollViewCallbacks(this)
+
+        subscribeResolve()
         /*
                 Point windowSize = new Point();
                 getWindowManager().getDefaultDisplay().getSize(windowSize);
@@ -108,7 +116,6 @@ class SelectLocationActivity : BaseActivity(), OnMapReadyCallback, LocationSourc
         super.onResume()
 
         locationService.location.
-                observeOnMainThread().
                 observeOnIoThread().
                 filter { it.time >= System.currentTimeMillis() - 15000 }.
                 filterBest { best, next -> next.accuracy - best.accuracy < -1.0 }.
@@ -148,21 +155,17 @@ class SelectLocationActivity : BaseActivity(), OnMapReadyCallback, LocationSourc
         googleMap.setOnMapClickListener { setMarker(it) }
 
         googleMap.setOnMarkerDragListener(object : GoogleMap.OnMarkerDragListener {
-            private fun addTempLocationInList(marker: Marker) {
-                resolveSubscription?.unsubscribe()
-                locationListAdapter.set(marker.position)
-            }
-
             override fun onMarkerDragStart(marker: Marker) {
-                addTempLocationInList(marker)
+                dragging = true
+                dragPositions.onNext(marker.position)
             }
 
             override fun onMarkerDrag(marker: Marker) {
-                addTempLocationInList(marker)
+                dragPositions.onNext(marker.position)
             }
 
             override fun onMarkerDragEnd(marker: Marker) {
-                resolveSubscription?.unsubscribe()
+                dragging = false
                 setMarker(marker.position, true)
             }
         })
@@ -227,22 +230,58 @@ class SelectLocationActivity : BaseActivity(), OnMapReadyCallback, LocationSourc
         googleMap.animateCamera(CameraUpdateFactory.newLatLngZoom(latLng, 13f))
     }
 
-    private fun resolve() {
-        resolveSubscription?.unsubscribe()
+    /**
+     * Drag positions are sampled to update the list and resolved once the marker rests for [SETTLE_DELAY]. Each new
+     * position cancels the pending lookup, positions within the last resolved cell reuse its addresses.
+     */
+    private fun subscribeResolve() {
+        val sampledDragPositions = dragPositions.
+                throttleLast(DRAG_SAMPLE_INTERVAL, TimeUnit.MILLISECONDS).
+                observeOnMainThread().
+                filter { dragging }.
+                share()
+
+        sampledDragPositions.
+                bindToLifecycle(this).
+                subscribe { locationListAdapter.set(it) }
+
+        Observable.merge(sampledDragPositions.map { it to true }, markerPositions.map { it to false }).
+                switchMap { resolve(it.first, it.second) }.
+                observeOnMainThread().
+                bindToLifecycle(this).
+                subscribe(
+                        { showPosition(); locationListAdapter.add(it) },
+                        { Timber.e(it, "Address resolving was completed unexpectedly") })
+    }
+
+    private fun resolve(position: LatLng, settle: Boolean): Observable<List<Address>> {
+        val cell = GeocodeService.cell(position.latitude, position.longitude)
+        val addresses = if (cell == resolvedCell) {
+            Observable.just(resolvedAddresses)
+        } else {
+            geocodeService.
+                    resolve(position, GEOCODER_MAX_RESULTS).
+                    observeOnMainThread().
+                    doOnNext { resolvedCell = cell; resolvedAddresses = it }.
+                    doOnError { Timber.e(it, "Could not resolve addresses") }.
+                    onErrorResumeNext(Observable.empty<List<Address>>())
+        }
+        return if (settle) addresses.delaySubscription(SETTLE_DELAY, TimeUnit.MILLISECONDS) else addresses
+    }
 
+    private fun resolve() {
         if (marker == null || currentLocation == null) {
             return
         }
 
-        locationListAdapter.set(if (marker?.position == currentLocation?.getLatLng()) currentLocation!! else marker!!.position)
+        showPosition()
+        markerPositions.onNext(marker!!.position)
+    }
 
-        resolveSubscription = Geocoder(this).
-                resolve(marker!!.position, GEOCODER_MAX_RESULTS).
-                observeOnMainThread().
-                bindToLifecycle(this).
-                subscribe(
-                        { locationListAdapter.add(it) },
-                        { Timber.e(it, "Could not resolve addresses") })
+    private fun showPosition() {
+        marker?.let {
+            locationListAdapter.set(if (it.position == currentLocation?.getLatLng()) currentLocation!! else it.position)
+        }
     }
 
     override fun onActivityResult(requestCode: Int, resultCode: Int, data: Intent?) {
@@ -281,6 +320,8 @@ class SelectLocationActivity : BaseActivity(), OnMapReadyCallback, LocationSourc
     companion object {
 
         private val GEOCODER_MAX_RESULTS = 5
+        private val DRAG_SAMPLE_INTERVAL = 100L
+        private val SETTLE_DELAY = 300L
         private val SEARCH_ADDRESS_REQUEST_CODE = 915
 
         fun createIntent(context: Context): Intent {
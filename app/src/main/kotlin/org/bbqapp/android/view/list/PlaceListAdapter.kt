@@ -31,59 +31,195 @@ import android.view.ViewGroup
 import android.widget.TextView
 import org.bbqapp.android.R
 import org.bbqapp.android.api.model.Place
-import org.bbqapp.android.extension.getLatLng
+import org.bbqapp.android.extension.GeoMath
 import org.bbqapp.android.util.AbstractListAdapter
-import org.bbqapp.android.util.DistanceFormatter
+import org.bbqapp.android.util.DistanceText
+import rx.Observable
+import rx.Scheduler
+import rx.subjects.PublishSubject
 import java.util.*
-import kotlin.comparisons.compareValues
 
-class PlaceListAdapter(private val layoutInflater: LayoutInflater) : AbstractListAdapter<Place>(), Comparator<Place> {
+/**
+ * Lists places ordered by distance to the current location.
+ *
+ * Places are sorted on [sortScheduler] whenever places or location change, only the latest ordering is published
+ * on [mainScheduler]. If a location update keeps the order, only the distance labels of the visible rows of the
+ * attached list are updated. Without [sortByDistance] places keep their given order and only show their distance.
+ */
+class PlaceListAdapter @JvmOverloads constructor(private val layoutInflater: LayoutInflater,
+                                                 sortScheduler: Scheduler,
+                                                 mainScheduler: Scheduler,
+                                                 private val sortByDistance: Boolean = true) :
+        AbstractListAdapter<Place>() {
     private var places: List<Place>? = null
     private var location: Location? = null
+    private var unsorted: List<Place> = emptyList()
+    private var published: Runnable? = null
+
+    // item ids by place id, assigned from a counter so that distinct places never share an id
+    private val ids = HashMap<String, Long>()
+    private var nextId = 0L
+
+    private class Sorting(val places: List<Place>, val location: Location?, val published: Runnable?)
+
+    private class Sorted(val places: List<Place>, val published: Runnable?)
+
+    private val sortings = PublishSubject.create<Sorting>()
+    private val subscription = sortings
+            // a superseded sorting must not drop the callback of the places it was sorting
+            .scan { previous, next ->
+                if (next.published == null) Sorting(next.places, next.location, previous.published) else next
+            }
+            .switchMap { sorting ->
+                Observable.fromCallable { Sorted(order(sorting.places, sorting.location), sorting.published) }
+                        .subscribeOn(sortScheduler)
+            }
+            .observeOn(mainScheduler)
+            .subscribe { sorted ->
+                if (isSameOrder(places, sorted.places)) {
+                    places = sorted.places
+                    updateVisibleDistances()
+                } else {
+                    beginTransaction()
+                    places = sorted.places
+                    commitTransaction()
+                    // ids only need to be stable between the lists of one transaction
+                    ids.keys.retainAll(sorted.places.mapNotNull { it.id }.toSet())
+                }
+                // runs once, later orderings may still carry the callback after it ran
+                if (sorted.published != null && sorted.published === published) {
+                    published = null
+                    sorted.published.run()
+                }
+            }
+
+    private fun order(places: List<Place>, location: Location?) =
+            if (sortByDistance) sort(places, location) else places
 
     override fun getItemId(item: Place): Long {
-        return item.id!!.hashCode().toLong()
+        return ids.getOrPut(item.id!!) { nextId++ }
+    }
+
+    private class ViewHolder(view: View) {
+        val addressTextView = view.findViewById(R.id.view_list_place_address) as TextView
+        val distanceTextView = view.findViewById(R.id.view_list_distance) as TextView
+        val distanceText = DistanceText()
     }
 
     override fun getView(place: Place, convertView: View?, parent: ViewGroup): View {
         val view = convertView ?: layoutInflater.inflate(R.layout.view_list_place, parent, false);
+        val holder = view.tag as? ViewHolder ?: ViewHolder(view).apply { view.tag = this }
 
-        val addressTextView = view.findViewById(R.id.view_list_place_address) as TextView
-        val distanceTextView = view.findViewById(R.id.view_list_distance) as TextView
-        addressTextView.text = place.id
+        holder.addressTextView.text = place.id
+        bindDistance(holder, place)
 
+        return view
+    }
 
-        distanceTextView.text = "Unknown"
-        getDistance(place)?.let {
-            distanceTextView.text = DistanceFormatter.format(it.toDouble())
+    private fun bindDistance(holder: ViewHolder, place: Place) {
+        val distance = getDistance(place)
+        if (distance == null) {
+            holder.distanceText.reset()
+            holder.distanceTextView.text = "Unknown"
+        } else if (holder.distanceText.update(distance)) {
+            holder.distanceTextView.text = holder.distanceText.text
         }
+    }
 
-        return view
+    /**
+     * Updates only the distance labels of the visible rows, used when a location update keeps the order
+     */
+    private fun updateVisibleDistances() {
+        val listView = attachedListView
+        if (listView == null) {
+            onChanged()
+            return
+        }
+
+        val first = listView.firstVisiblePosition
+        for (i in 0..listView.childCount - 1) {
+            val holder = listView.getChildAt(i).tag as? ViewHolder
+            val position = first + i
+            if (holder != null && position < count) {
+                bindDistance(holder, getItem(position))
+            }
+        }
     }
 
-    fun setPlaces(places: List<Place>) {
-        this.places = places
-        sort(this)
-        onInvalidated()
+    /**
+     * Sets places to display, [published] runs right after the sorted places have been published to the list
+     */
+    @JvmOverloads
+    fun setPlaces(places: List<Place>, published: Runnable? = null) {
+        unsorted = places
+        this.published = published
+        sortings.onNext(Sorting(places, location, published))
     }
 
     override fun getList() = places
 
     fun setLocation(location: Location) {
         this.location = location
-        sort(this)
-        onChanged()
+        sortings.onNext(Sorting(unsorted, location, null))
+    }
+
+    /**
+     * Stops sorting, no further ordering is published
+     */
+    fun destroy() {
+        subscription.unsubscribe()
     }
 
-    private fun getDistance(place: Place): Float? {
+    private fun getDistance(place: Place): Double? {
         return location?.let {
-            val latLng = place.location.getLatLng()
-            val dist = Location(this.javaClass.simpleName)
-            dist.latitude = latLng.latitude
-            dist.longitude = latLng.longitude
-            return location!!.distanceTo(dist)
+            GeoMath.haversine(it.latitude, it.longitude, place.location.lat, place.location.lon)
         }
     }
 
-    override fun compare(lhs: Place, rhs: Place) = compareValues(getDistance(lhs), getDistance(rhs));
-}
\ No newline at end of file
+    companion object {
+        private fun isSameOrder(places: List<Place>?, sorted: List<Place>): Boolean {
+            if (places == null || places.size != sorted.size) {
+                return false
+            }
+            for (i in places.indices) {
+                if (places[i] !== sorted[i]) {
+                    return false
+                }
+            }
+            return true
+        }
+
+        /**
+         * Returns places ordered by distance to location. Great circle distances, as shown in the labels, are computed
+         * once and sorted as `long` keys holding the distance in the upper and the original index in the lower 32 bits,
+         * which orders correctly because the bits of non-negative floats increase with their value.
+         */
+        fun sort(places: List<Place>, location: Location?): List<Place> {
+            if (location == null || places.size < 2) {
+                return places
+            }
+
+            val lats = DoubleArray(places.size)
+            val lons = DoubleArray(places.size)
+            for (i in places.indices) {
+                lats[i] = places[i].location.lat
+                lons[i] = places[i].location.lon
+            }
+            // equirectangular distances would misorder far places, the list spans up to 10000 km
+            val distances = DoubleArray(places.size)
+            GeoMath.haversine(location.latitude, location.longitude, lats, lons, distances)
+
+            val keys = LongArray(places.size)
+            for (i in keys.indices) {
+                keys[i] = (java.lang.Float.floatToIntBits(distances[i].toFloat()).toLong() shl 32) or i.toLong()
+            }
+            Arrays.sort(keys)
+
+            val sorted = ArrayList<Place>(places.size)
+            for (key in keys) {
+                sorted.add(places[key.toInt()])
+            }
+            return sorted
+        }
+    }
+}
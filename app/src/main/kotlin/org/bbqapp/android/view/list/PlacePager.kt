@@ -0,0 +1,181 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 bbqapp
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.bbqapp.android.view.list
+
+import android.location.Location
+import org.bbqapp.android.api.cache.CachedPlaceService
+import org.bbqapp.android.api.model.Place
+import org.bbqapp.android.extension.GeoMath
+import rx.Observable
+import rx.Scheduler
+import rx.Subscription
+import java.util.*
+
+/**
+ * Loads places nearest to an origin first in pages of [pageSize] and keeps a window of at most [maxPages]
+ * consecutive pages, so memory does not grow with the total number of places.
+ *
+ * [loadNext] appends the following page and drops the first page once the window is full, [loadPrevious] prepends
+ * the preceding page and drops the last one. Only one page is loaded at a time. Pages are requested from [source]
+ * with origin, radius, offset and limit.
+ */
+class PlacePager(private val source: (Location, Long, Int, Int) -> Observable<List<Place>>,
+                 private val ioScheduler: Scheduler,
+                 private val mainScheduler: Scheduler,
+                 private val listener: Listener,
+                 private val radius: Long = DEFAULT_RADIUS,
+                 private val pageSize: Int = DEFAULT_PAGE_SIZE,
+                 private val maxPages: Int = DEFAULT_MAX_PAGES) {
+
+    constructor(service: CachedPlaceService, ioScheduler: Scheduler, mainScheduler: Scheduler, listener: Listener) :
+            this({ origin, radius, offset, limit -> service.getPlaces(origin, radius, offset, limit) },
+                    ioScheduler, mainScheduler, listener)
+
+    interface Listener {
+        /**
+         * Called on the main scheduler whenever the window changed
+         *
+         * @param places places of all pages of the window
+         * @param shift  number of places inserted at (positive) or removed from (negative) the start of the window
+         */
+        fun onPlaces(places: List<Place>, shift: Int)
+
+        fun onError(e: Throwable)
+    }
+
+    private val pages = ArrayDeque<List<Place>>()
+    private var origin: Location? = null
+    private var firstPage = 0
+    private var lastPageLoaded = false
+    private var loading: Subscription? = null
+
+    val isStarted: Boolean
+        get() = origin != null
+
+    /**
+     * Discards all pages and loads the first page around origin, a page still loading for a previous origin is
+     * cancelled
+     */
+    fun start(origin: Location) {
+        stop()
+        this.origin = origin
+        pages.clear()
+        firstPage = 0
+        lastPageLoaded = false
+        load(0)
+    }
+
+    /**
+     * Whether paging should start anew at [location]: while not started or still on the first page, or once [location]
+     * left the window, i.e. is farther from the origin than the farthest loaded place
+     */
+    fun shouldRestart(location: Location): Boolean {
+        val origin = origin ?: return true
+        if (firstPage == 0 && pages.size <= 1) {
+            return true
+        }
+
+        var windowRadius = 0.0
+        pages.forEach { page ->
+            page.forEach {
+                windowRadius = Math.max(windowRadius,
+                        GeoMath.haversine(origin.latitude, origin.longitude, it.location.lat, it.location.lon))
+            }
+        }
+        val distance = GeoMath.haversine(origin.latitude, origin.longitude, location.latitude, location.longitude)
+        return distance > windowRadius
+    }
+
+    fun loadNext() {
+        if (isStarted && loading == null && !lastPageLoaded) {
+            load(firstPage + pages.size)
+        }
+    }
+
+    fun loadPrevious() {
+        if (isStarted && loading == null && firstPage > 0) {
+            load(firstPage - 1)
+        }
+    }
+
+    /**
+     * Cancels loading, the window is kept and [start] begins a new one
+     */
+    fun stop() {
+        loading?.unsubscribe()
+        loading = null
+        origin = null
+    }
+
+    private fun load(page: Int) {
+        val subscription = source(origin!!, radius, page * pageSize, pageSize)
+                .subscribeOn(ioScheduler)
+                .unsubscribeOn(ioScheduler)
+                .observeOn(mainScheduler)
+                .subscribe({
+                    loading = null
+                    onPage(page, it)
+                }, {
+                    loading = null
+                    listener.onError(it)
+                })
+        // a page delivered synchronously has already been handled
+        if (!subscription.isUnsubscribed) {
+            loading = subscription
+        }
+    }
+
+    private fun onPage(page: Int, places: List<Place>) {
+        var shift = 0
+        if (page == firstPage + pages.size) {
+            pages.addLast(places)
+            lastPageLoaded = places.size < pageSize
+            if (pages.size > maxPages) {
+                shift = -pages.removeFirst().size
+                firstPage++
+            }
+        } else if (page == firstPage - 1) {
+            pages.addFirst(places)
+            firstPage--
+            shift = places.size
+            if (pages.size > maxPages) {
+                pages.removeLast()
+                lastPageLoaded = false
+            }
+        } else {
+            return
+        }
+
+        val window = ArrayList<Place>(pages.sumBy { it.size })
+        pages.forEach { window.addAll(it) }
+        listener.onPlaces(window, shift)
+    }
+
+    companion object {
+        const val DEFAULT_RADIUS = 10000L
+        const val DEFAULT_PAGE_SIZE = 50
+        const val DEFAULT_MAX_PAGES = 6
+    }
+}
@@ -0,0 +1,89 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 bbqapp
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.bbqaap.android.api.cache
+
+import org.bbqapp.android.api.cache.DiskLru
+import org.junit.Assert.*
+import org.junit.Rule
+import org.junit.Test
+import org.junit.rules.TemporaryFolder
+import java.io.IOException
+
+class DiskLruTest {
+    @Rule @JvmField val folder = TemporaryFolder()
+
+    var time = 1000L
+
+    private fun lru(maxEntries: Int = Int.MAX_VALUE, maxSize: Long = Long.MAX_VALUE) =
+            DiskLru(folder.root, maxEntries, maxSize, { time })
+
+    private fun DiskLru.put(key: String, text: String) = put(key) { it.writeText(text) }
+
+    @Test fun testSizeEviction() {
+        val lru = lru(maxSize = 8)
+        lru.put("a", "1234")
+        time = 2000
+        lru.put("b", "1234")
+        time = 3000
+        lru.get("a")
+        time = 4000
+
+        assertEquals(listOf("b"), lru.put("c", "1234"))
+        assertEquals(8, lru.size)
+        assertEquals("1234", lru.get("a")?.readText())
+        assertNull(lru.get("b"))
+    }
+
+    @Test fun testKeysAreRestoredFromFiles() {
+        lru().apply {
+            put("14/8580/5738@8", "tile")
+            time = 2000
+            put("de_CH:473700,85400:5", "address")
+        }
+
+        val lru = lru(maxEntries = 2)
+
+        assertEquals(listOf("14/8580/5738@8", "de_CH:473700,85400:5"), lru.keys)
+        assertEquals(listOf("14/8580/5738@8"), lru.put("other", "value"))
+    }
+
+    @Test fun testFailedWriteKeepsFile() {
+        val lru = lru()
+        lru.put("a", "old")
+
+        try {
+            lru.put("a") {
+                it.writeText("partial")
+                throw IOException("disk full")
+            }
+            fail()
+        } catch (e: IOException) {
+            assertEquals("disk full", e.message)
+        }
+
+        assertEquals("old", lru.get("a")?.readText())
+        assertEquals(listOf("a.json"), folder.root.list().toList())
+    }
+}
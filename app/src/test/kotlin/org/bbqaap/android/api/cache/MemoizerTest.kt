@@ -0,0 +1,92 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 bbqapp
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.bbqaap.android.api.cache
+
+import org.bbqapp.android.api.cache.Memoizer
+import org.junit.Assert.assertEquals
+import org.junit.Test
+import rx.Observable
+import rx.observers.TestSubscriber
+import rx.subjects.PublishSubject
+
+class MemoizerTest {
+    var time = 0L
+    val memoizer = Memoizer<String, String>(1000, clock = { time })
+    var requests = 0
+
+    private fun request(subject: PublishSubject<String>): () -> Observable<String> = {
+        requests++
+        subject.first()
+    }
+
+    @Test fun testCoalescing() {
+        val subject = PublishSubject.create<String>()
+        val first = TestSubscriber<String>()
+        val second = TestSubscriber<String>()
+
+        memoizer.get("a", request(subject)).subscribe(first)
+        memoizer.get("a", request(subject)).subscribe(second)
+        subject.onNext("value")
+
+        assertEquals(1, requests)
+        first.assertValue("value")
+        second.assertValue("value")
+    }
+
+    @Test fun testTimeToLive() {
+        val subject = PublishSubject.create<String>()
+        memoizer.get("a", request(subject)).subscribe()
+        subject.onNext("value")
+
+        time = 999
+        memoizer.get("a", request(subject)).subscribe()
+        assertEquals(1, requests)
+
+        time = 1000
+        memoizer.get("a", request(subject)).subscribe()
+        assertEquals(2, requests)
+    }
+
+    @Test fun testErrorsAreNotMemoized() {
+        val subject = PublishSubject.create<String>()
+        memoizer.get("a", request(subject)).subscribe(TestSubscriber<String>())
+        subject.onError(RuntimeException())
+
+        memoizer.get("a", request(PublishSubject.create<String>())).subscribe()
+
+        assertEquals(2, requests)
+    }
+
+    @Test fun testInvalidate() {
+        val subject = PublishSubject.create<String>()
+        memoizer.get("a", request(subject)).subscribe()
+        subject.onNext("value")
+
+        memoizer.invalidate("a")
+        memoizer.get("a", request(subject)).subscribe()
+
+        assertEquals(2, requests)
+    }
+}
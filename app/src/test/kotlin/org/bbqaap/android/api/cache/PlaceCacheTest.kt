@@ -0,0 +1,82 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 bbqapp
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.bbqaap.android.api.cache
+
+import com.fasterxml.jackson.databind.ObjectMapper
+import com.fasterxml.jackson.module.kotlin.KotlinModule
+import org.bbqapp.android.api.cache.PlaceCache
+import org.bbqapp.android.api.model.Location
+import org.bbqapp.android.api.model.Place
+import org.junit.Assert.*
+import org.junit.Rule
+import org.junit.Test
+import org.junit.rules.TemporaryFolder
+
+class PlaceCacheTest {
+    @Rule @JvmField val folder = TemporaryFolder()
+
+    val mapper = ObjectMapper().registerModule(KotlinModule())
+    val places = listOf(Place(id = "1", tags = listOf("grill"), location = Location(listOf(8.54, 47.37), "Point")))
+
+    @Test fun testPersistence() {
+        PlaceCache(folder.root, mapper).put("14/8580/5738@8", places)
+
+        val entry = PlaceCache(folder.root, mapper).get("14/8580/5738@8")
+
+        assertEquals(places, entry?.places)
+    }
+
+    @Test fun testLeastRecentlyUsedEviction() {
+        val probe = folder.newFolder()
+        PlaceCache(probe, mapper).put("probe", places)
+        val entrySize = probe.listFiles()[0].length()
+
+        val cache = PlaceCache(folder.newFolder(), mapper, entrySize * 2, 0)
+        cache.put("a", places)
+        cache.put("b", places)
+        cache.get("a")
+        cache.put("c", places)
+
+        assertNotNull(cache.get("a"))
+        assertNull(cache.get("b"))
+        assertNotNull(cache.get("c"))
+    }
+
+    @Test fun testMemoryHitKeepsDiskEntry() {
+        val probe = folder.newFolder()
+        PlaceCache(probe, mapper).put("probe", places)
+        val entrySize = probe.listFiles()[0].length()
+
+        val cache = PlaceCache(folder.newFolder(), mapper, entrySize * 2)
+        cache.put("a", places)
+        cache.put("b", places)
+        cache.get("a")
+        cache.put("c", places)
+
+        assertNotNull(cache.get("a"))
+        assertNull(cache.get("b"))
+        assertNotNull(cache.get("c"))
+    }
+}
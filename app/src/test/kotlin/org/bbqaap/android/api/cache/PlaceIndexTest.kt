@@ -0,0 +1,70 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 bbqapp
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.bbqaap.android.api.cache
+
+import org.bbqapp.android.api.cache.PlaceIndex
+import org.bbqapp.android.api.model.Location
+import org.bbqapp.android.api.model.Place
+import org.junit.Assert.assertEquals
+import org.junit.Test
+
+class PlaceIndexTest {
+    fun place(id: String, latitude: Double, longitude: Double) =
+            Place(id = id, location = Location(listOf(longitude, latitude), "Point"))
+
+    val zurich = place("zurich", 47.3769, 8.5417)
+    val winterthur = place("winterthur", 47.4988, 8.7237)
+    val munich = place("munich", 48.1351, 11.5820)
+    val fiji = place("fiji", -17.7134, 178.0650)
+    val samoa = place("samoa", -13.7590, -172.1046)
+
+    @Test fun testBoundingBoxQuery() {
+        val index = PlaceIndex(2)
+        index.add(listOf(zurich, winterthur, munich, fiji, samoa))
+
+        assertEquals(setOf(zurich, winterthur), index.query(47.0, 8.0, 48.0, 9.0).toSet())
+        assertEquals(setOf(fiji, samoa), index.query(-20.0, 170.0, -10.0, -170.0).toSet())
+    }
+
+    @Test fun testNearest() {
+        val index = PlaceIndex(2)
+        index.add(listOf(samoa, munich, fiji, winterthur, zurich))
+
+        assertEquals(listOf(zurich, winterthur, munich), index.nearest(47.37, 8.54, 3))
+        assertEquals(listOf(fiji, samoa), index.nearest(-16.0, 179.9, 2))
+    }
+
+    @Test fun testReplaceKnownPlace() {
+        val index = PlaceIndex(2)
+        index.add(listOf(zurich, munich))
+
+        val moved = place("zurich", 46.9480, 7.4474)
+        index.add(listOf(moved))
+
+        assertEquals(2, index.size)
+        assertEquals(listOf(moved), index.query(46.0, 7.0, 47.0, 8.0))
+        assertEquals(emptyList<Place>(), index.query(47.0, 8.0, 48.0, 9.0))
+    }
+}
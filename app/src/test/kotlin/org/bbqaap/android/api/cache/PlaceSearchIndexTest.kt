@@ -0,0 +1,135 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 bbqapp
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.bbqaap.android.api.cache
+
+import com.fasterxml.jackson.databind.ObjectMapper
+import com.fasterxml.jackson.module.kotlin.KotlinModule
+import org.bbqapp.android.api.cache.PlaceSearchIndex
+import org.bbqapp.android.api.model.Address
+import org.bbqapp.android.api.model.Comment
+import org.bbqapp.android.api.model.Location
+import org.bbqapp.android.api.model.Place
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertFalse
+import org.junit.Rule
+import org.junit.Test
+import org.junit.rules.TemporaryFolder
+import rx.schedulers.TestScheduler
+import java.util.concurrent.TimeUnit
+
+class PlaceSearchIndexTest {
+    @Rule @JvmField val folder = TemporaryFolder()
+
+    val mapper = ObjectMapper().registerModule(KotlinModule())
+    val grill = Place("1", listOf("grill", "wood"), Address("Switzerland"), Location(47.37, 8.54),
+            listOf(Comment("Nice fireplace by the lake", 5)))
+    val fireplace = Place("2", listOf("fireplace"), Address("Germany"), Location(48.13, 11.57))
+    val shelter = Place("3", listOf("shelter"), Address("Österreich"), Location(48.21, 16.37),
+            listOf(Comment("Bring your own grill", 3)))
+
+    val scheduler = TestScheduler()
+
+    private fun file() = folder.root.resolve("search.jsonl")
+
+    private fun index(maxEntries: Int = PlaceSearchIndex.DEFAULT_MAX_ENTRIES) =
+            PlaceSearchIndex(file(), mapper, maxEntries, scheduler)
+
+    private fun flush() = scheduler.advanceTimeBy(PlaceSearchIndex.DEFAULT_FLUSH_DELAY, TimeUnit.MILLISECONDS)
+
+    @Test fun testPrefixAndInfix() {
+        val index = index()
+        index.add(listOf(grill, fireplace, shelter))
+
+        assertEquals(listOf(fireplace, grill), index.search("firep", 10))
+        assertEquals(listOf(fireplace, grill), index.search("place", 10))
+        assertEquals(listOf(shelter), index.search("oster", 10))
+        assertEquals(emptyList<Place>(), index.search("zzz", 10))
+    }
+
+    @Test fun testTagsRankFirst() {
+        val index = index()
+        index.add(listOf(shelter, grill))
+
+        assertEquals(listOf(grill, shelter), index.search("grill", 10))
+    }
+
+    @Test fun testAllWordsMustMatch() {
+        val index = index()
+        index.add(listOf(grill, fireplace, shelter))
+
+        assertEquals(listOf(grill), index.search("fire lake", 10))
+    }
+
+    @Test fun testChangedPlaceIsReindexed() {
+        val index = index()
+        index.add(listOf(fireplace))
+        index.add(listOf(fireplace.copy(tags = listOf("shelter"))))
+
+        assertEquals(emptyList<Place>(), index.search("fireplace", 10))
+        assertEquals(1, index.search("shelter", 10).size)
+    }
+
+    @Test fun testPersistence() {
+        index().apply {
+            add(listOf(grill, fireplace))
+            add(listOf(fireplace.copy(tags = listOf("shelter"))))
+        }
+        flush()
+
+        val index = index()
+
+        assertEquals(2, index.size)
+        assertEquals(listOf(grill), index.search("grill", 10))
+        assertEquals(listOf("shelter"), index.search("shelter", 10)[0].tags)
+    }
+
+    @Test fun testAppendsAreBatched() {
+        val index = index()
+        index.add(listOf(grill))
+        index.add(listOf(fireplace))
+
+        assertFalse(file().exists())
+        assertEquals(listOf(fireplace, grill), index.search("fire", 10))
+
+        flush()
+
+        assertEquals(2, file().readLines().size)
+    }
+
+    @Test fun testEviction() {
+        val index = index(maxEntries = 2)
+        index.add(listOf(grill, fireplace))
+        index.search("grill", 10)
+        index.add(listOf(shelter))
+
+        assertEquals(2, index.size)
+        assertEquals(listOf(grill, shelter), index.search("grill", 10))
+        assertEquals(emptyList<Place>(), index.search("germany", 10))
+
+        flush()
+
+        assertEquals(listOf(grill, shelter), index(maxEntries = 2).search("grill", 10))
+    }
+}
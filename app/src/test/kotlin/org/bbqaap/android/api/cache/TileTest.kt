@@ -0,0 +1,58 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 bbqapp
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.bbqaap.android.api.cache
+
+import com.google.android.gms.maps.model.LatLng
+import com.google.android.gms.maps.model.LatLngBounds
+import org.bbqapp.android.api.cache.Tile
+import org.junit.Assert.*
+import org.junit.Test
+
+class TileTest {
+    @Test fun testTileOfPosition() {
+        val tile = Tile.of(47.3769, 8.5417, 12)
+
+        assertEquals(Tile(12, 2145, 1434), tile)
+        assertTrue(tile.contains(47.3769, 8.5417))
+        assertFalse(tile.contains(47.3769, 8.7))
+    }
+
+    @Test fun testCovering() {
+        val bounds = LatLngBounds(LatLng(47.30, 8.45), LatLng(47.45, 8.65))
+
+        val tiles = Tile.covering(bounds, 12)
+
+        assertEquals(9, tiles.size)
+        assertTrue(tiles.contains(Tile.of(47.3769, 8.5417, 12)))
+    }
+
+    @Test fun testCoveringAntimeridian() {
+        val bounds = LatLngBounds(LatLng(-18.0, 179.0), LatLng(-17.0, -179.0))
+
+        val tiles = Tile.covering(bounds, 4)
+
+        assertEquals(listOf(Tile(4, 15, 8), Tile(4, 0, 8)), tiles)
+    }
+}
@@ -0,0 +1,70 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 bbqapp
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.bbqaap.android.api.converter
+
+import com.fasterxml.jackson.databind.ObjectMapper
+import com.fasterxml.jackson.module.kotlin.KotlinModule
+import okhttp3.MediaType
+import okhttp3.ResponseBody
+import org.bbqapp.android.api.converter.JsonArrayDecoder
+import org.bbqapp.android.api.model.Location
+import org.bbqapp.android.api.model.Place
+import org.junit.Assert.assertEquals
+import org.junit.Test
+import rx.schedulers.Schedulers
+
+class JsonArrayDecoderTest {
+    val mapper = ObjectMapper().registerModule(KotlinModule())
+    val decoder = JsonArrayDecoder(mapper, Place::class.java, 2, 4)
+
+    private fun body(places: List<Place>) =
+            ResponseBody.create(MediaType.parse("application/json"), mapper.writeValueAsString(places))
+
+    @Test fun testBatches() {
+        val places = (1..11).map { Place(id = "$it", tags = listOf("grill"), location = Location(listOf(8.54, 47.37), "Point")) }
+
+        val batches = decoder.decode(body(places)).toList().toBlocking().single()
+
+        assertEquals(listOf(2, 4, 4, 1), batches.map { it.size })
+        assertEquals(places, batches.flatten())
+    }
+
+    @Test fun testBackpressure() {
+        val places = (1..1000).map { Place(id = "$it", location = Location(47.37, 8.54)) }
+
+        val batches = JsonArrayDecoder(mapper, Place::class.java, 1, 1).decode(body(places))
+                .observeOn(Schedulers.newThread())
+                .toList().toBlocking().single()
+
+        assertEquals(1000, batches.size)
+        assertEquals(places, batches.flatten())
+    }
+
+    @Test fun testEmptyArray() {
+        val batches = decoder.decode(body(emptyList())).toList().toBlocking().single()
+
+        assertEquals(listOf(emptyList<Place>()), batches)
+    }
+}
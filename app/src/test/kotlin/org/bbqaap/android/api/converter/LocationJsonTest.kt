@@ -0,0 +1,62 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 bbqapp
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.bbqaap.android.api.converter
+
+import com.fasterxml.jackson.databind.JsonMappingException
+import com.fasterxml.jackson.databind.ObjectMapper
+import com.fasterxml.jackson.module.kotlin.KotlinModule
+import org.bbqapp.android.api.model.Location
+import org.bbqapp.android.api.model.Place
+import org.junit.Assert.assertEquals
+import org.junit.Test
+
+class LocationJsonTest {
+    val mapper = ObjectMapper().registerModule(KotlinModule())
+
+    @Test fun testSerialize() {
+        val json = mapper.writeValueAsString(Location(47.37, 8.54))
+
+        assertEquals("""{"coordinates":[8.54,47.37],"type":"Point"}""", json)
+    }
+
+    @Test fun testDeserialize() {
+        val place = mapper.readValue("""{"_id":"1","location":{"type":"Point","coordinates":[8.54,47.37,408]}}""",
+                Place::class.java)
+
+        assertEquals(47.37, place.location.lat, 0.0)
+        assertEquals(8.54, place.location.lon, 0.0)
+        assertEquals(Location.POINT, place.location.type)
+    }
+
+    @Test fun testRoundTrip() {
+        val location = Location(listOf(-122.42, 37.77), "Point")
+
+        assertEquals(location, mapper.readValue(mapper.writeValueAsString(location), Location::class.java))
+    }
+
+    @Test(expected = JsonMappingException::class) fun testMissingCoordinates() {
+        mapper.readValue("""{"type":"Point"}""", Location::class.java)
+    }
+}
@@ -0,0 +1,61 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 bbqapp
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.bbqaap.android.benchmark
+
+/**
+ * Runs micro benchmarks by hand, they are kept out of the unit tests as their timing depends on the machine.
+ *
+ * Run all with `./gradlew benchmark` or some with `./gradlew benchmark -Pbenchmarks=cluster`.
+ */
+object Benchmarks {
+    private val benchmarks = linkedMapOf<String, () -> Unit>(
+            "cluster" to { ClusterBenchmark.run() },
+            "location" to { LocationBenchmark.run() },
+            "distance" to { DistanceBenchmark.run() },
+            "geomath" to { GeoMathBenchmark.run() })
+
+    @JvmStatic fun main(args: Array<String>) {
+        val names = if (args.isEmpty()) benchmarks.keys.toList() else args.toList()
+        for (name in names) {
+            val benchmark = benchmarks[name] ?: throw IllegalArgumentException(
+                    "Unknown benchmark $name, known are ${benchmarks.keys}")
+            println("== $name")
+            benchmark()
+        }
+    }
+
+    /**
+     * Mean nanoseconds of [rounds] runs of [block] after [warmUp] untimed runs
+     */
+    fun time(warmUp: Int, rounds: Int, block: () -> Unit): Long {
+        repeat(warmUp) { block() }
+
+        val start = System.nanoTime()
+        repeat(rounds) { block() }
+        return (System.nanoTime() - start) / rounds
+    }
+
+    fun report(result: String) = println(result)
+}
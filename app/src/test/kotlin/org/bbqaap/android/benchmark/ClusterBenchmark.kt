@@ -0,0 +1,73 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 bbqapp
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.bbqaap.android.benchmark
+
+import com.google.android.gms.maps.model.LatLng
+import com.google.maps.android.clustering.ClusterItem
+import com.google.maps.android.clustering.algo.Algorithm
+import com.google.maps.android.clustering.algo.NonHierarchicalDistanceBasedAlgorithm
+import org.bbqapp.android.view.map.GridClusterAlgorithm
+import java.util.*
+
+/**
+ * Clustering of random places at several zoom levels by [GridClusterAlgorithm] and the stock algorithm
+ */
+object ClusterBenchmark {
+    private class Item(latitude: Double, longitude: Double) : ClusterItem {
+        private val position = LatLng(latitude, longitude)
+
+        override fun getPosition() = position
+    }
+
+    private val ZOOMS = listOf(4.0, 7.0, 10.0, 13.0, 16.0)
+    private const val WARM_UP_ROUNDS = 3
+    private const val ROUNDS = 10
+
+    fun run() {
+        // one instance each, so that no round pays for starting the precomputations of a new instance
+        val grid = GridClusterAlgorithm<Item>()
+        val stock = NonHierarchicalDistanceBasedAlgorithm<Item>()
+
+        for (count in listOf(1000, 10000, 100000)) {
+            val random = Random(count.toLong())
+            val items = (1..count).map { Item(35.0 + random.nextDouble() * 25.0, -10.0 + random.nextDouble() * 40.0) }
+
+            measure("grid", count, grid, items)
+            measure("stock", count, stock, items)
+        }
+    }
+
+    private fun measure(name: String, count: Int, algorithm: Algorithm<Item>, items: List<Item>) {
+        val nanos = Benchmarks.time(WARM_UP_ROUNDS, ROUNDS) { cluster(algorithm, items) }
+        Benchmarks.report("$name clustering of $count places at ${ZOOMS.size} zoom levels: ${nanos / 1000} us")
+    }
+
+    private fun cluster(algorithm: Algorithm<Item>, items: List<Item>) {
+        // replacing the items abandons precomputations still running from the previous round
+        algorithm.clearItems()
+        algorithm.addItems(items)
+        ZOOMS.forEach { algorithm.getClusters(it) }
+    }
+}
@@ -0,0 +1,66 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 bbqapp
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.bbqaap.android.benchmark
+
+import org.bbqapp.android.util.DistanceFormatter
+import java.text.DecimalFormat
+import java.util.*
+
+/**
+ * Compares formatting with a new [DecimalFormat] per call to the cached formats of [DistanceFormatter]
+ */
+object DistanceBenchmark {
+    private const val ROUNDS = 5
+
+    fun run() {
+        val distances = DoubleArray(100000)
+        for (i in distances.indices) {
+            distances[i] = Math.pow(10.0, i % 60 / 10.0) + i
+        }
+
+        for (round in 1..ROUNDS) {
+            var length = 0
+            val uncached = Benchmarks.time(0, 1) {
+                for (meters in distances) {
+                    length += formatUncached(meters).length
+                }
+            }
+            val cached = Benchmarks.time(0, 1) {
+                for (meters in distances) {
+                    length += DistanceFormatter.format(meters, Locale.UK).length
+                }
+            }
+
+            Benchmarks.report("round $round: uncached ${uncached / distances.size} ns, " +
+                    "cached ${cached / distances.size} ns per distance ($length)")
+        }
+    }
+
+    private fun formatUncached(meters: Double) = when {
+        Math.abs(meters) < 1000 -> DecimalFormat("#,###").format(meters) + " m"
+        Math.abs(meters) < 100000 -> DecimalFormat("#,###.#").format(meters / 1000) + " km"
+        else -> DecimalFormat("#,###").format(meters / 1000) + " km"
+    }
+}
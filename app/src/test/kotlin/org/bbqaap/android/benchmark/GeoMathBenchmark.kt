@@ -0,0 +1,57 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 bbqapp
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.bbqaap.android.benchmark
+
+import org.bbqapp.android.extension.GeoMath
+import java.util.*
+
+/**
+ * Nanoseconds per distance of the haversine and equirectangular bulk operations of [GeoMath]
+ */
+object GeoMathBenchmark {
+    private const val COUNT = 100000
+    private const val ROUNDS = 10
+
+    fun run() {
+        val random = Random(42)
+        val lats = DoubleArray(COUNT)
+        val lons = DoubleArray(COUNT)
+        for (i in 0..COUNT - 1) {
+            lats[i] = 47 + random.nextDouble()
+            lons[i] = 8 + random.nextDouble()
+        }
+        val haversines = DoubleArray(COUNT)
+        val equirectangulars = FloatArray(COUNT)
+        val origin = GeoMath.Origin(47.5, 8.5)
+
+        for (round in 1..ROUNDS) {
+            val haversine = Benchmarks.time(0, 1) { GeoMath.haversine(47.5, 8.5, lats, lons, haversines) }
+            val equirectangular = Benchmarks.time(0, 1) { origin.distances(lats, lons, equirectangulars) }
+
+            Benchmarks.report("round $round: haversine ${haversine.toDouble() / COUNT} ns, " +
+                    "equirectangular ${equirectangular.toDouble() / COUNT} ns per distance")
+        }
+    }
+}
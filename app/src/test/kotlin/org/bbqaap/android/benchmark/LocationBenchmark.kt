@@ -0,0 +1,72 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 bbqapp
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.bbqaap.android.benchmark
+
+import com.fasterxml.jackson.databind.ObjectMapper
+import com.fasterxml.jackson.module.kotlin.KotlinModule
+import org.bbqapp.android.api.model.Location
+import java.util.*
+
+/**
+ * Heap used by decoded locations compared to the former list backed representation
+ */
+object LocationBenchmark {
+    data class ListLocation(val coordinates: List<Double>, val type: String)
+
+    private const val COUNT = 100000
+
+    fun run() {
+        val mapper = ObjectMapper().registerModule(KotlinModule())
+        val random = Random(42)
+        val json = (1..COUNT).joinToString(",", "[", "]") {
+            """{"coordinates":[${random.nextDouble() * 360 - 180},${random.nextDouble() * 170 - 85}],"type":"Point"}"""
+        }
+
+        val listType = mapper.typeFactory.constructCollectionType(List::class.java, ListLocation::class.java)
+        val primitiveType = mapper.typeFactory.constructCollectionType(List::class.java, Location::class.java)
+        val listBytes = retained { mapper.readValue<List<ListLocation>>(json, listType) }
+        val primitiveBytes = retained { mapper.readValue<List<Location>>(json, primitiveType) }
+
+        Benchmarks.report("List<Double> coordinates: ${listBytes / COUNT} bytes per location")
+        Benchmarks.report("primitive coordinates:    ${primitiveBytes / COUNT} bytes per location")
+    }
+
+    private fun retained(block: () -> List<*>): Long {
+        val before = usedHeap()
+        val value = block()
+        val after = usedHeap()
+        check(value.size == COUNT)
+        return after - before
+    }
+
+    private fun usedHeap(): Long {
+        val runtime = Runtime.getRuntime()
+        for (i in 1..4) {
+            System.gc()
+            Thread.sleep(50)
+        }
+        return runtime.totalMemory() - runtime.freeMemory()
+    }
+}
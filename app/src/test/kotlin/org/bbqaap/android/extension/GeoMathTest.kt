@@ -0,0 +1,81 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 bbqapp
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.bbqaap.android.extension
+
+import org.bbqapp.android.extension.GeoMath
+import org.junit.Assert.assertEquals
+import org.junit.Test
+
+class GeoMathTest {
+    /**
+     * Point pairs with their ellipsoidal WGS84 distance as computed by `Location.distanceBetween` (Vincenty)
+     */
+    val references = listOf(
+            doubleArrayOf(47.3769, 8.5417, 46.9480, 7.4474, 95699.0),
+            doubleArrayOf(40.7128, -74.0060, 51.5074, -0.1278, 5585233.6),
+            doubleArrayOf(-33.8688, 151.2093, -36.8485, 174.7633, 2160508.8),
+            doubleArrayOf(-17.7134, 178.065, -16.5782, -179.4145, 296150.6),
+            doubleArrayOf(69.6492, 18.9553, 69.6500, 18.9700, 577.7),
+            doubleArrayOf(-0.1807, -78.4678, -0.2000, -78.5000, 4171.7))
+
+    @Test fun testHaversine() {
+        for (r in references) {
+            assertEquals(r[4], GeoMath.haversine(r[0], r[1], r[2], r[3]), r[4] * 0.006)
+        }
+    }
+
+    @Test fun testEquirectangularNearby() {
+        // within 100 km below 60° latitude: 0.6 % of the sphere plus 0.5 % of the approximation
+        for (r in references.filter { it[4] < 100000 && Math.abs(it[0]) < 60 }) {
+            assertEquals(r[4], GeoMath.equirectangular(r[0], r[1], r[2], r[3]), r[4] * 0.011)
+        }
+        // within 10 km at any latitude below 80°
+        for (r in references.filter { it[4] < 10000 }) {
+            assertEquals(GeoMath.haversine(r[0], r[1], r[2], r[3]),
+                    GeoMath.equirectangular(r[0], r[1], r[2], r[3]), r[4] * 0.002)
+        }
+    }
+
+    @Test fun testAntimeridian() {
+        assertEquals(GeoMath.haversine(0.0, 179.9, 0.0, -179.9), GeoMath.equirectangular(0.0, 179.9, 0.0, -179.9), 1.0)
+        assertEquals(22239.0, GeoMath.haversine(0.0, 179.9, 0.0, -179.9), 1.0)
+    }
+
+    @Test fun testBulk() {
+        val lats = references.map { it[2] }.toDoubleArray()
+        val lons = references.map { it[3] }.toDoubleArray()
+        val haversines = DoubleArray(lats.size)
+        val equirectangulars = FloatArray(lats.size)
+
+        GeoMath.haversine(47.3769, 8.5417, lats, lons, haversines)
+        GeoMath.Origin(47.3769, 8.5417).distances(lats, lons, equirectangulars)
+
+        for (i in lats.indices) {
+            assertEquals(GeoMath.haversine(47.3769, 8.5417, lats[i], lons[i]), haversines[i], 1e-6)
+            assertEquals(GeoMath.equirectangular(47.3769, 8.5417, lats[i], lons[i]), equirectangulars[i].toDouble(),
+                    equirectangulars[i] * 1e-6)
+        }
+    }
+}
@@ -27,7 +27,10 @@ package org.bbqaap.android.extension
 import android.location.Address
 import android.location.Location
 import org.bbqapp.android.extension.getLatLng
+import org.bbqapp.android.extension.isBetterThan
 import org.junit.Assert.assertEquals
+import org.junit.Assert.assertFalse
+import org.junit.Assert.assertTrue
 import org.junit.Test
 import org.mockito.Mockito.`when`
 import org.mockito.Mockito.mock
@@ -64,4 +67,22 @@ class LocationUtilsTest {
         assertEquals(latLng.latitude, 14.98, 0.001)
         assertEquals(latLng.longitude, 89.21, 0.001)
     }
-}
\ No newline at end of file
+
+    private fun fix(minutes: Long, accuracy: Float): Location {
+        val location = mock(Location::class.java)
+        `when`(location.elapsedRealtimeNanos).thenReturn(minutes * 60 * 1000000000)
+        `when`(location.hasAccuracy()).thenReturn(true)
+        `when`(location.accuracy).thenReturn(accuracy)
+        return location
+    }
+
+    @Test fun testIsBetterThan() {
+        assertTrue(fix(10, 50f).isBetterThan(null))
+        assertTrue(fix(10, 10f).isBetterThan(fix(9, 50f)))
+        assertTrue(fix(9, 10f).isBetterThan(fix(10, 50f)))
+        assertTrue(fix(10, 50f).isBetterThan(fix(5, 10f)))
+        assertFalse(fix(5, 10f).isBetterThan(fix(10, 50f)))
+        assertTrue(fix(10, 10f).isBetterThan(fix(9, 10f)))
+        assertFalse(fix(9, 10f).isBetterThan(fix(10, 10f)))
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 bbqapp
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.bbqaap.android.service
+
+import com.fasterxml.jackson.databind.ObjectMapper
+import com.fasterxml.jackson.module.kotlin.KotlinModule
+import org.bbqapp.android.service.AddressIndex
+import org.bbqapp.android.service.GeocodeCache.CachedAddress
+import org.junit.Assert.assertEquals
+import org.junit.Rule
+import org.junit.Test
+import org.junit.rules.TemporaryFolder
+
+class AddressIndexTest {
+    @Rule @JvmField val folder = TemporaryFolder()
+
+    val mapper = ObjectMapper().registerModule(KotlinModule())
+    val zurich = CachedAddress("de_CH", listOf("Bahnhofstrasse 1", "8001 Zürich", "Schweiz"))
+    val munich = CachedAddress("de_DE", listOf("Marienplatz 1", "80331 München", "Deutschland"))
+    val bern = CachedAddress("de_CH", listOf("Bahnhofplatz 10", "3011 Bern", "Schweiz"))
+
+    var time = 0L
+
+    private fun index(file: String = "addresses.json", maxEntries: Int = AddressIndex.DEFAULT_MAX_ENTRIES) =
+            AddressIndex(folder.root.resolve(file), mapper, maxEntries, { time })
+
+    @Test fun testPrefixSearch() {
+        val index = index()
+        index.addCached(listOf(zurich, munich, bern))
+
+        assertEquals(listOf(munich), index.find("munc", 10))
+        assertEquals(setOf(zurich, bern), index.find("Bahnhof", 10).toSet())
+        assertEquals(listOf(bern), index.find("bahnhof be", 10))
+        assertEquals(emptyList<CachedAddress>(), index.find("bahnhof munchen", 10))
+    }
+
+    @Test fun testSelectionsRankFirst() {
+        val index = index()
+        time = 1
+        index.addCached(listOf(zurich))
+        time = 2
+        index.addCached(listOf(bern))
+
+        assertEquals(listOf(bern, zurich), index.find("bahnhof", 10))
+
+        index.selectCached(zurich)
+
+        assertEquals(listOf(zurich, bern), index.find("bahnhof", 10))
+        assertEquals(listOf(zurich), index.find("", 10))
+    }
+
+    @Test fun testDuplicates() {
+        val index = index()
+        index.addCached(listOf(zurich, zurich.copy(lines = listOf("Bahnhofstrasse 1,", "8001 Zurich", "Schweiz"))))
+
+        assertEquals(1, index.find("bahnhofstrasse", 10).size)
+    }
+
+    @Test fun testEviction() {
+        val index = index(maxEntries = 2)
+        time = 1
+        index.addCached(listOf(zurich))
+        time = 2
+        index.addCached(listOf(munich))
+        time = 3
+        index.addCached(listOf(bern))
+
+        assertEquals(emptyList<CachedAddress>(), index.find("zurich", 10))
+        assertEquals(listOf(munich), index.find("munchen", 10))
+        assertEquals(listOf(bern), index.find("bern", 10))
+    }
+
+    @Test fun testPersistence() {
+        index().apply {
+            addCached(listOf(zurich, munich))
+            selectCached(munich)
+            save()
+        }
+
+        val index = index()
+
+        assertEquals(listOf(munich), index.find("", 10))
+        assertEquals(listOf(zurich), index.find("zur", 10))
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 bbqapp
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.bbqaap.android.service
+
+import org.bbqapp.android.extension.GeoMath
+import org.bbqapp.android.service.Gazetteer
+import org.junit.Assert.assertArrayEquals
+import org.junit.Assert.assertEquals
+import org.junit.Before
+import org.junit.Rule
+import org.junit.Test
+import org.junit.rules.TemporaryFolder
+import java.io.ByteArrayOutputStream
+import java.io.File
+import java.util.*
+
+class GazetteerTest {
+    @Rule @JvmField val folder = TemporaryFolder()
+
+    lateinit var places: List<Gazetteer.Place>
+    lateinit var gazetteer: Gazetteer
+
+    @Before fun setUp() {
+        places = javaClass.getResourceAsStream("/gazetteer.tsv").reader(Charsets.UTF_8).use { GazetteerWriter.read(it) }
+
+        val file = folder.newFile("gazetteer.gaz")
+        file.outputStream().use { GazetteerWriter.write(places, it) }
+        gazetteer = Gazetteer.open(file)
+    }
+
+    @Test fun testNearest() {
+        assertEquals(places.size, gazetteer.size)
+        assertEquals(listOf(Gazetteer.Place("Zürich", "CH", 47.3769, 8.5417)), gazetteer.nearest(47.37, 8.55))
+        assertEquals(listOf("Winterthur", "Zürich", "Konstanz"), gazetteer.nearest(47.52, 8.8, 3).map { it.name })
+    }
+
+    @Test fun testMaxDistance() {
+        assertEquals(emptyList<Gazetteer.Place>(), gazetteer.nearest(30.0, -40.0, 1, 100000.0))
+        assertEquals(listOf("Bern"), gazetteer.nearest(46.95, 7.45, 5, 20000.0).map { it.name })
+    }
+
+    @Test fun testAntimeridian() {
+        assertEquals("Suva", gazetteer.nearest(-18.0, -179.9)[0].name)
+    }
+
+    @Test fun testMatchesLinearScan() {
+        val random = Random(42)
+        for (i in 0..999) {
+            val lat = random.nextDouble() * 180 - 90
+            val lon = random.nextDouble() * 360 - 180
+            val origin = GeoMath.Origin(lat, lon)
+            val expected = places.sortedBy { origin.squaredDistance(it.lat, it.lon) }.take(4)
+
+            assertEquals("nearest of $lat, $lon", expected, gazetteer.nearest(lat, lon, 4))
+        }
+    }
+
+    @Test fun testBundledAssetIsUpToDate() {
+        // unit tests run in the module directory
+        val bundled = File("src/main/gazetteer.tsv").reader(Charsets.UTF_8).use { GazetteerWriter.read(it) }
+        val expected = ByteArrayOutputStream()
+        GazetteerWriter.write(bundled, expected)
+
+        assertArrayEquals("run ./gradlew writeGazetteer", expected.toByteArray(),
+                File("src/main/assets/gazetteer.gaz").readBytes())
+        assertEquals("Zürich", Gazetteer.open(File("src/main/assets/gazetteer.gaz")).nearest(47.37, 8.55)[0].name)
+    }
+}
@@ -0,0 +1,122 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 bbqapp
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.bbqaap.android.service
+
+import org.bbqapp.android.service.Gazetteer
+import org.bbqapp.android.service.Gazetteer.Companion.MAGIC
+import org.bbqapp.android.service.Gazetteer.Companion.MICRODEGREES
+import org.bbqapp.android.service.Gazetteer.Companion.VERSION
+import org.bbqapp.android.service.Gazetteer.Place
+import java.io.*
+import java.util.*
+
+/**
+ * Writes [Gazetteer] files, run by the writeGazetteer task to write the bundled asset of a tab separated place file
+ */
+object GazetteerWriter {
+
+    @JvmStatic
+    fun main(args: Array<String>) {
+        if (args.size != 2) {
+            System.err.println("Usage: GazetteerWriter <places.tsv> <gazetteer.gaz>")
+            System.exit(1)
+            return
+        }
+
+        val places = File(args[0]).reader(Charsets.UTF_8).use { read(it) }
+        FileOutputStream(args[1]).use { write(places, it) }
+        println("Wrote ${places.size} places to ${args[1]}")
+    }
+
+    /**
+     * Reads places of tab separated lines of name, country code, latitude and longitude
+     */
+    fun read(input: Reader) = input.readLines().filter { it.isNotBlank() }.map {
+        val fields = it.split('\t')
+        if (fields.size != 4) {
+            throw IllegalArgumentException("Not a place: $it")
+        }
+        Place(fields[0], fields[1], fields[2].toDouble(), fields[3].toDouble())
+    }
+
+    /**
+     * Writes [places] in gazetteer format, equal names are stored once
+     */
+    fun write(places: List<Place>, output: OutputStream) {
+        val records = places.map {
+            Record(Math.round(it.lat * MICRODEGREES).toInt(), Math.round(it.lon * MICRODEGREES).toInt(), it)
+        }.toTypedArray()
+        arrange(records, 0, records.size, 0)
+
+        val names = ByteArrayOutputStream()
+        val nameOffsets = HashMap<String, Int>()
+        val data = DataOutputStream(BufferedOutputStream(output))
+        data.writeInt(MAGIC)
+        data.writeInt(VERSION)
+        data.writeInt(records.size)
+        for (record in records) {
+            val country = record.place.countryCode
+            if (country.length != 2) {
+                throw IllegalArgumentException("Country code of ${record.place} is not two letters")
+            }
+
+            data.writeInt(record.lat)
+            data.writeInt(record.lon)
+            data.writeInt(nameOffsets.getOrPut(record.place.name) {
+                val bytes = record.place.name.toByteArray(Charsets.UTF_8)
+                if (bytes.size > 0xffff) {
+                    throw IllegalArgumentException("Name of ${record.place} is too long")
+                }
+
+                val nameOffset = names.size()
+                names.write(bytes.size.ushr(8))
+                names.write(bytes.size)
+                names.write(bytes)
+                nameOffset
+            })
+            data.writeByte(country[0].toInt())
+            data.writeByte(country[1].toInt())
+        }
+        names.writeTo(data)
+        data.flush()
+    }
+
+    private class Record(val lat: Int, val lon: Int, val place: Place)
+
+    /**
+     * Orders records as implicit k-d tree, the median of each range by the axis of its depth moves to its middle
+     */
+    private fun arrange(records: Array<Record>, low: Int, high: Int, depth: Int) {
+        if (high - low < 2) {
+            return
+        }
+
+        val comparator = if (depth % 2 == 0) compareBy<Record> { it.lat } else compareBy<Record> { it.lon }
+        Arrays.sort(records, low, high, comparator)
+        val mid = (low + high).ushr(1)
+        arrange(records, low, mid, depth + 1)
+        arrange(records, mid + 1, high, depth + 1)
+    }
+}
@@ -0,0 +1,133 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 bbqapp
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.bbqaap.android.service
+
+import android.location.Address
+import com.fasterxml.jackson.databind.ObjectMapper
+import com.fasterxml.jackson.module.kotlin.KotlinModule
+import org.bbqapp.android.service.GeocodeCache
+import org.bbqapp.android.service.GeocodeCache.CachedAddress
+import org.junit.Assert.*
+import org.junit.Rule
+import org.junit.Test
+import org.junit.rules.TemporaryFolder
+import java.io.File
+
+class GeocodeCacheTest {
+    @Rule @JvmField val folder = TemporaryFolder()
+
+    val mapper = ObjectMapper().registerModule(KotlinModule())
+    // entries without addresses, so no android Address has to be created
+    val none = emptyList<Address>()
+
+    var time = 1000L
+
+    private fun cache(maxEntries: Int = GeocodeCache.DEFAULT_MAX_ENTRIES, maxAge: Long = GeocodeCache.DEFAULT_MAX_AGE) =
+            GeocodeCache(folder.root, mapper, maxEntries, maxAge, { time })
+
+    private fun file(key: String) = File(folder.root, "$key.json")
+
+    @Test fun testAddressRoundTrip() {
+        val zurich = CachedAddress("de_CH", listOf("Bahnhofstrasse 1", "8001 Zürich", "Schweiz"), "1", "Bahnhofstrasse",
+                "1", "8001", "Zürich", "Altstadt", "Zürich", "Bezirk Zürich", "CH", "Schweiz", 47.3769, 8.5417)
+        // optional fields stay unset, like an address without coordinates
+        val munich = CachedAddress("de_DE", listOf("München", "Deutschland"), locality = "München", countryCode = "DE")
+        cache().putCached("de_CH:473769,85417:5", listOf(zurich, munich))
+
+        assertEquals(listOf(zurich, munich), cache().getCached("de_CH:473769,85417:5"))
+    }
+
+    @Test fun testPutAndGet() {
+        val cache = cache()
+        cache.put("a", none)
+
+        assertEquals(none, cache.get("a"))
+        assertNull(cache.get("b"))
+        assertEquals(none, cache().get("a"))
+    }
+
+    @Test fun testEviction() {
+        val cache = cache(maxEntries = 2)
+        cache.put("a", none)
+        time = 2000
+        cache.put("b", none)
+        time = 3000
+        cache.get("a")
+        time = 4000
+        cache.put("c", none)
+
+        assertNotNull(cache.get("a"))
+        assertNull(cache.get("b"))
+        assertNotNull(cache.get("c"))
+        assertFalse(file("b").exists())
+    }
+
+    @Test fun testExpiry() {
+        val maxAge = 30L * 24 * 60 * 60 * 1000
+        val cache = cache(maxAge = maxAge)
+        cache.put("a", none)
+
+        time += maxAge
+        assertNotNull(cache.get("a"))
+
+        time += 1
+        assertNull(cache.get("a"))
+        assertFalse(file("a").exists())
+    }
+
+    @Test fun testCorruptFile() {
+        val cache = cache()
+        cache.put("a", none)
+        file("a").writeText("{\"time\":")
+
+        assertNull(cache.get("a"))
+        assertFalse(file("a").exists())
+
+        cache.put("a", none)
+        assertEquals(none, cache.get("a"))
+    }
+
+    @Test fun testIndexFromModificationTimes() {
+        cache().apply {
+            put("a", none)
+            time = 2000
+            put("b", none)
+            time = 3000
+            put("c", none)
+        }
+        // a was used last by a previous process
+        file("a").setLastModified(4000)
+
+        time = 5000
+        val cache = cache(maxEntries = 3)
+        cache.put("d", none)
+
+        assertTrue(file("a").exists())
+        assertFalse(file("b").exists())
+        assertTrue(file("c").exists())
+        assertNull(cache.get("b"))
+        assertNotNull(cache.get("a"))
+    }
+}
@@ -0,0 +1,59 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 bbqapp
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.bbqaap.android.util
+
+import org.bbqapp.android.util.DistanceFormatter
+import org.bbqapp.android.util.DistanceText
+import org.junit.Assert.*
+import org.junit.Test
+import java.util.*
+
+class DistanceFormatterTest {
+    @Test fun testMetric() {
+        assertEquals("850 m", DistanceFormatter.format(850.4, Locale.UK))
+        assertEquals("1.3 km", DistanceFormatter.format(1250.0, Locale.UK))
+        assertEquals("1,3 km", DistanceFormatter.format(1250.0, Locale.GERMANY))
+        assertEquals("123 km", DistanceFormatter.format(123400.0, Locale.UK))
+    }
+
+    @Test fun testImperial() {
+        assertEquals("98 ft", DistanceFormatter.format(30.0, Locale.US))
+        assertEquals("1.55 mi", DistanceFormatter.format(2500.0, Locale.US))
+        assertEquals("1,243 mi", DistanceFormatter.format(2000000.0, Locale.US))
+    }
+
+    @Test fun testDistanceTextSkipsUnchangedValues() {
+        val text = DistanceText(Locale.UK)
+
+        assertTrue(text.update(1234.0))
+        assertFalse(text.update(1221.0))
+        assertEquals("1.2 km", text.text)
+        assertTrue(text.update(1260.0))
+        assertEquals("1.3 km", text.text)
+
+        text.reset()
+        assertTrue(text.update(1260.0))
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 bbqapp
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.bbqaap.android.util
+
+import org.bbqapp.android.util.IdDiff
+import org.junit.Assert.assertEquals
+import org.junit.Test
+import java.util.*
+
+class IdDiffTest {
+    class Recorder(old: LongArray, val new: LongArray) : IdDiff.OnListChangeListener {
+        val list = old.toMutableList()
+        val events = ArrayList<String>()
+
+        override fun onItemRangeRemoved(positionStart: Int, itemCount: Int) {
+            events.add("-$positionStart+$itemCount")
+            for (i in 1..itemCount) {
+                list.removeAt(positionStart)
+            }
+        }
+
+        override fun onItemRangeInserted(positionStart: Int, itemCount: Int) {
+            events.add("+$positionStart+$itemCount")
+            for (i in positionStart..positionStart + itemCount - 1) {
+                list.add(i, new[i])
+            }
+        }
+
+        override fun onItemRangeChanged(positionStart: Int, itemCount: Int) {
+            events.add("~$positionStart+$itemCount")
+        }
+    }
+
+    private fun diff(old: LongArray, new: LongArray, changed: Set<Long> = emptySet()): Recorder {
+        val recorder = Recorder(old, new)
+        IdDiff.dispatch(old, new, changed, recorder)
+        assertEquals(new.toList(), recorder.list)
+        return recorder
+    }
+
+    @Test fun testRanges() {
+        val recorder = diff(longArrayOf(1, 2, 3, 4, 5, 6), longArrayOf(1, 7, 8, 4, 5, 9), setOf(4L, 5L))
+
+        assertEquals(listOf("-5+1", "-1+2", "+1+2", "+5+1", "~3+2"), recorder.events)
+    }
+
+    @Test fun testMoveKeepsLongestOrderedSequence() {
+        val recorder = diff(longArrayOf(1, 2, 3, 4, 5), longArrayOf(5, 1, 2, 3, 4))
+
+        assertEquals(listOf("-4+1", "+0+1"), recorder.events)
+    }
+
+    @Test fun testUnchanged() {
+        assertEquals(emptyList<String>(), diff(longArrayOf(1, 2, 3), longArrayOf(1, 2, 3)).events)
+    }
+
+    @Test fun testRandomLists() {
+        val random = Random(42)
+        for (round in 1..1000) {
+            val ids = (1L..20L).toMutableList()
+            Collections.shuffle(ids, random)
+            val old = ids.take(random.nextInt(12)).toLongArray()
+            Collections.shuffle(ids, random)
+            val new = ids.take(random.nextInt(12)).toLongArray()
+
+            diff(old, new)
+        }
+    }
+}
@@ -0,0 +1,62 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 bbqapp
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.bbqaap.android.view.list
+
+import android.location.Location
+import org.bbqapp.android.api.model.Place
+import org.bbqapp.android.view.list.PlaceListAdapter
+import org.junit.Assert.assertEquals
+import org.junit.Test
+import org.mockito.Mockito.`when`
+import org.mockito.Mockito.mock
+import org.bbqapp.android.api.model.Location as ApiLocation
+
+class PlaceListAdapterTest {
+    private fun location(lat: Double, lon: Double): Location {
+        val location = mock(Location::class.java)
+        `when`(location.latitude).thenReturn(lat)
+        `when`(location.longitude).thenReturn(lon)
+        return location
+    }
+
+    @Test fun testSortsFarPlacesByGreatCircleDistance() {
+        // 48° away on the great circle but 55° by the equirectangular approximation
+        val east = Place(id = "east", location = ApiLocation(60.0, 110.0))
+        // 52° away by both
+        val south = Place(id = "south", location = ApiLocation(8.0, 0.0))
+
+        val sorted = PlaceListAdapter.sort(listOf(south, east), location(60.0, 0.0))
+
+        assertEquals(listOf(east, south), sorted)
+    }
+
+    @Test fun testSortsNearPlaces() {
+        val places = (5 downTo 1).map { Place(id = "$it", location = ApiLocation(47.0 + it * 0.01, 8.0)) }
+
+        val sorted = PlaceListAdapter.sort(places, location(47.0, 8.0))
+
+        assertEquals(listOf("1", "2", "3", "4", "5"), sorted.map { it.id })
+    }
+}
@@ -0,0 +1,157 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 bbqapp
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.bbqaap.android.view.list
+
+import android.location.Location
+import org.bbqapp.android.api.model.Place
+import org.bbqapp.android.view.list.PlacePager
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertFalse
+import org.junit.Assert.assertTrue
+import org.junit.Test
+import org.mockito.Mockito.`when`
+import org.mockito.Mockito.mock
+import rx.Observable
+import rx.schedulers.Schedulers
+import rx.subjects.PublishSubject
+import java.util.*
+import org.bbqapp.android.api.model.Location as ApiLocation
+
+class PlacePagerTest {
+    private class Request(val origin: Location, val offset: Int, val places: PublishSubject<List<Place>>)
+
+    private val requests = ArrayList<Request>()
+    private val windows = ArrayList<List<Place>>()
+    private val shifts = ArrayList<Int>()
+
+    private fun pager(maxPages: Int = PlacePager.DEFAULT_MAX_PAGES) = PlacePager({ origin, radius, offset, limit ->
+        val places = PublishSubject.create<List<Place>>()
+        requests.add(Request(origin, offset, places))
+        places.first()
+    }, Schedulers.immediate(), Schedulers.immediate(), object : PlacePager.Listener {
+        override fun onPlaces(places: List<Place>, shift: Int) {
+            windows.add(places)
+            shifts.add(shift)
+        }
+
+        override fun onError(e: Throwable) {
+            throw e
+        }
+    }, pageSize = 2, maxPages = maxPages)
+
+    private val pager = pager()
+
+    private fun location(lat: Double, lon: Double): Location {
+        val location = mock(Location::class.java)
+        `when`(location.latitude).thenReturn(lat)
+        `when`(location.longitude).thenReturn(lon)
+        return location
+    }
+
+    private fun places(vararg ids: String) = ids.map { Place(id = it, location = ApiLocation(0.0, 0.0)) }
+
+    private fun place(id: String, lat: Double, lon: Double) = Place(id = id, location = ApiLocation(lat, lon))
+
+    @Test fun testFreshFixRestartsPaging() {
+        val stale = location(52.52, 13.40)
+        val fresh = location(47.37, 8.54)
+
+        pager.start(stale)
+        pager.stop()
+        pager.start(fresh)
+        // the page of the stale fix arrives late and is ignored
+        requests[0].places.onNext(places("berlin 1", "berlin 2"))
+        requests[1].places.onNext(places("zurich 1", "zurich 2"))
+        pager.loadNext()
+
+        assertEquals(listOf(stale, fresh, fresh), requests.map { it.origin })
+        assertEquals(listOf(0, 0, 2), requests.map { it.offset })
+        assertEquals(listOf(places("zurich 1", "zurich 2")), windows)
+    }
+
+    @Test fun testLoadNextAppendsPages() {
+        pager.start(location(47.37, 8.54))
+        requests[0].places.onNext(places("1", "2"))
+        pager.loadNext()
+        requests[1].places.onNext(places("3"))
+        pager.loadNext()
+
+        assertEquals(2, requests.size)
+        assertEquals(listOf(places("1", "2"), places("1", "2", "3")), windows)
+    }
+
+    @Test fun testFirstPageIsDroppedBeyondMaxPages() {
+        val pager = pager(maxPages = 2)
+        pager.start(location(47.37, 8.54))
+        requests[0].places.onNext(places("1", "2"))
+        pager.loadNext()
+        requests[1].places.onNext(places("3", "4"))
+        pager.loadNext()
+        requests[2].places.onNext(places("5", "6"))
+
+        assertEquals(listOf(0, 2, 4), requests.map { it.offset })
+        assertEquals(places("3", "4", "5", "6"), windows.last())
+        assertEquals(listOf(0, 0, -2), shifts)
+    }
+
+    @Test fun testLoadPreviousPrependsDroppedPage() {
+        val pager = pager(maxPages = 2)
+        pager.start(location(47.37, 8.54))
+        requests[0].places.onNext(places("1", "2"))
+        pager.loadNext()
+        requests[1].places.onNext(places("3", "4"))
+        pager.loadNext()
+        requests[2].places.onNext(places("5", "6"))
+
+        pager.loadPrevious()
+        requests[3].places.onNext(places("1", "2"))
+        // the dropped last page is loaded again
+        pager.loadNext()
+
+        assertEquals(listOf(0, 2, 4, 0, 4), requests.map { it.offset })
+        assertEquals(places("1", "2", "3", "4"), windows.last())
+        assertEquals(2, shifts.last())
+    }
+
+    @Test fun testRestartOnlyOnFirstPageOrOutsideWindow() {
+        val origin = location(47.37, 8.54)
+        assertTrue(pager.shouldRestart(origin))
+
+        pager.start(origin)
+        requests[0].places.onNext(listOf(place("1", 47.371, 8.54), place("2", 47.372, 8.54)))
+        // about 550 m away, but still on the first page
+        assertTrue(pager.shouldRestart(location(47.375, 8.54)))
+
+        pager.loadNext()
+        requests[1].places.onNext(listOf(place("3", 47.375, 8.54), place("4", 47.38, 8.54)))
+
+        // the farthest loaded place is about 1.1 km away
+        assertFalse(pager.shouldRestart(location(47.375, 8.54)))
+        assertTrue(pager.shouldRestart(location(47.39, 8.54)))
+
+        pager.stop()
+        assertTrue(pager.shouldRestart(origin))
+    }
+}
@@ -0,0 +1,59 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 bbqapp
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.bbqaap.android.view.map
+
+import com.google.android.gms.maps.model.LatLng
+import com.google.maps.android.clustering.ClusterItem
+import org.bbqapp.android.view.map.GridClusterAlgorithm
+import org.junit.Assert.assertEquals
+import org.junit.Test
+
+class GridClusterAlgorithmTest {
+    class Item(latitude: Double, longitude: Double) : ClusterItem {
+        private val position = LatLng(latitude, longitude)
+
+        override fun getPosition() = position
+    }
+
+    @Test fun testNearbyItemsAreClustered() {
+        val algorithm = GridClusterAlgorithm<Item>()
+        algorithm.addItems(listOf(Item(47.3769, 8.5417), Item(47.3770, 8.5418), Item(40.7128, -74.0060)))
+
+        assertEquals(2, algorithm.getClusters(10.0).size)
+        assertEquals(3, algorithm.getClusters(21.0).size)
+    }
+
+    @Test fun testRemoveItem() {
+        val removed = Item(47.3769, 8.5417)
+        val algorithm = GridClusterAlgorithm<Item>()
+        algorithm.addItems(listOf(removed, Item(48.1351, 11.5820), Item(40.7128, -74.0060)))
+        algorithm.getClusters(12.0)
+
+        algorithm.removeItem(removed)
+
+        assertEquals(2, algorithm.items.size)
+        assertEquals(2, algorithm.getClusters(12.0).size)
+    }
+}